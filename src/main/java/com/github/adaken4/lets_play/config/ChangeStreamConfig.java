@@ -0,0 +1,46 @@
+package com.github.adaken4.lets_play.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.messaging.DefaultMessageListenerContainer;
+import org.springframework.data.mongodb.core.messaging.MessageListenerContainer;
+
+import com.github.adaken4.lets_play.service.ProductAutocompleteIndex;
+import com.github.adaken4.lets_play.service.ProductCache;
+import com.github.adaken4.lets_play.service.ProductChangeStreamListener;
+import com.github.adaken4.lets_play.service.ProductChangeSubscription;
+
+/**
+ * Subscribes to the products change stream so every replica evicts its
+ * near-cache and updates its autocomplete index when another one writes.
+ * Requires MongoDB running as a replica set, hence opt-in via
+ * app.products.change-stream.enabled.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.products.change-stream.enabled", havingValue = "true")
+public class ChangeStreamConfig {
+
+    // Started/stopped with the application context (SmartLifecycle).
+    // Each subscription blocks one thread on its cursor, a virtual one when enabled.
+    @Bean
+    public MessageListenerContainer messageListenerContainer(MongoTemplate mongoTemplate,
+            @Value("${spring.threads.virtual.enabled}") boolean virtualThreads) {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("change-stream-");
+        executor.setVirtualThreads(virtualThreads);
+        return new DefaultMessageListenerContainer(mongoTemplate, executor);
+    }
+
+    // Resubscribes after cursor errors, which otherwise end the subscription for good
+    @Bean
+    public ProductChangeSubscription productChangeSubscription(MessageListenerContainer container,
+            ProductCache productCache, ProductAutocompleteIndex autocompleteIndex) {
+        ProductChangeSubscription subscription = new ProductChangeSubscription(container,
+                new ProductChangeStreamListener(productCache, autocompleteIndex), productCache);
+        subscription.subscribe();
+        return subscription;
+    }
+}
@@ -8,15 +8,18 @@ import org.springframework.boot.CommandLineRunner;
 import org.springframework.stereotype.Component;
 
 import com.github.adaken4.lets_play.model.User;
+import com.github.adaken4.lets_play.repository.ProductRepository;
 import com.github.adaken4.lets_play.repository.UserRepository;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
 
 @Component // Runs automatically on application startup
 public class DatabaseLoader implements CommandLineRunner {
     @Autowired
     private UserRepository userRepository;
     @Autowired
-    private BCryptPasswordEncoder passwordEncoder;
+    private ProductRepository productRepository;
+    @Autowired
+    private PasswordEncoder passwordEncoder;
 
     @Value("${admin.setup.email}")
     private String adminEmail;
@@ -38,5 +41,11 @@ public class DatabaseLoader implements CommandLineRunner {
         } else {
             System.out.println("System admin user already exists.");
         }
+
+        // Products created before optimistic locking have no version field yet
+        long migrated = productRepository.initializeMissingVersions();
+        if (migrated > 0) {
+            System.out.println("Initialized version on " + migrated + " products.");
+        }
     }
 }
@@ -0,0 +1,162 @@
+package com.github.adaken4.lets_play.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * Where one request's time went, by phase: JWT verification and principal
+ * loading (AuthTokenFilter), MongoDB commands, the handler and the
+ * serialization of its response body.
+ *
+ * RequestTimingFilter starts one per request and makes it current on the
+ * request thread; the instrumented code adds to it through the static
+ * record methods, which do nothing outside a request. Phases can overlap:
+ * MongoDB time is also part of the principal and handler phases.
+ * Work the request hands to other threads is not counted.
+ */
+public final class RequestTiming {
+
+    public enum Phase {
+        JWT("jwt"),
+        PRINCIPAL("principal"),
+        DB("db"),
+        HANDLER("handler"),
+        SERIALIZE("serialize");
+
+        private final String metric;
+
+        Phase(String metric) {
+            this.metric = metric;
+        }
+    }
+
+    private static final Phase[] PHASES = Phase.values();
+
+    private static final String ATTRIBUTE = RequestTiming.class.getName();
+
+    private static final ThreadLocal<RequestTiming> CURRENT = new ThreadLocal<>();
+
+    private final long started = System.nanoTime();
+    private final long[] nanos = new long[PHASES.length];
+    private final int[] counts = new int[PHASES.length];
+
+    // Handler progress (System.nanoTime), 0 until reached
+    private long handlerStarted;
+    private long bodyStarted;
+
+    private RequestTiming() {
+    }
+
+    /**
+     * Starts timing a request and makes the timing current on this thread.
+     */
+    static RequestTiming start(HttpServletRequest request) {
+        RequestTiming timing = new RequestTiming();
+        request.setAttribute(ATTRIBUTE, timing);
+        CURRENT.set(timing);
+        return timing;
+    }
+
+    /**
+     * Detaches the request's timing from this thread.
+     */
+    static void detach() {
+        CURRENT.remove();
+    }
+
+    /**
+     * @return the request's timing, also on async dispatches; null if untimed
+     */
+    static RequestTiming of(HttpServletRequest request) {
+        return (RequestTiming) request.getAttribute(ATTRIBUTE);
+    }
+
+    /**
+     * Adds one occurrence of a phase to the current request, if any.
+     */
+    public static void record(Phase phase, long elapsedNanos) {
+        RequestTiming timing = CURRENT.get();
+        if (timing != null) {
+            timing.nanos[phase.ordinal()] += elapsedNanos;
+            timing.counts[phase.ordinal()]++;
+        }
+    }
+
+    static void handlerStarted() {
+        RequestTiming timing = CURRENT.get();
+        if (timing != null) {
+            timing.handlerStarted = System.nanoTime();
+        }
+    }
+
+    /**
+     * Marks the end of the handler's own work: what follows is serialization.
+     */
+    static void bodyStarted() {
+        RequestTiming timing = CURRENT.get();
+        if (timing != null && timing.handlerStarted != 0) {
+            timing.bodyStarted = System.nanoTime();
+        }
+    }
+
+    static void handlerCompleted() {
+        RequestTiming timing = CURRENT.get();
+        if (timing == null || timing.handlerStarted == 0) {
+            return;
+        }
+        long now = System.nanoTime();
+        if (timing.bodyStarted != 0) {
+            record(Phase.HANDLER, timing.bodyStarted - timing.handlerStarted);
+            record(Phase.SERIALIZE, now - timing.bodyStarted);
+        } else {
+            record(Phase.HANDLER, now - timing.handlerStarted);
+        }
+    }
+
+    /**
+     * @return Server-Timing header value with the phases seen so far and the
+     *         total, durations in milliseconds
+     */
+    String serverTiming() {
+        StringBuilder header = new StringBuilder(128);
+        for (Phase phase : PHASES) {
+            int count = counts[phase.ordinal()];
+            if (count == 0) {
+                continue;
+            }
+            appendMillis(header.append(phase.metric).append(";dur="), nanos[phase.ordinal()]);
+            if (count > 1) {
+                header.append(";desc=\"").append(count).append("x\"");
+            }
+            header.append(", ");
+        }
+        return appendMillis(header.append("total;dur="), System.nanoTime() - started).toString();
+    }
+
+    /**
+     * Appends the phases and total as logfmt fields (jwt_ms=0.042 db_n=2 ...).
+     */
+    void appendFields(StringBuilder line) {
+        for (Phase phase : PHASES) {
+            int count = counts[phase.ordinal()];
+            if (count == 0) {
+                continue;
+            }
+            appendMillis(line.append(' ').append(phase.metric).append("_ms="), nanos[phase.ordinal()]);
+            if (count > 1) {
+                line.append(' ').append(phase.metric).append("_n=").append(count);
+            }
+        }
+        appendMillis(line.append(" total_ms="), System.nanoTime() - started);
+    }
+
+    // Milliseconds with three decimals, without String.format on the request thread
+    private static StringBuilder appendMillis(StringBuilder out, long nanos) {
+        long micros = Math.max(nanos, 0) / 1_000;
+        long fraction = micros % 1_000;
+        out.append(micros / 1_000).append('.');
+        if (fraction < 100) {
+            out.append(fraction < 10 ? "00" : "0");
+        }
+        return out.append(fraction);
+    }
+}
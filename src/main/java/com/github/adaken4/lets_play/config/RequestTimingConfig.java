@@ -0,0 +1,36 @@
+package com.github.adaken4.lets_play.config;
+
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.boot.mongodb.autoconfigure.MongoClientSettingsBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.mongodb.event.CommandFailedEvent;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandSucceededEvent;
+
+/**
+ * Feeds MongoDB command durations into the current request's RequestTiming.
+ */
+@Configuration
+public class RequestTimingConfig {
+
+    // The synchronous driver notifies on the calling (request) thread; commands
+    // issued elsewhere, e.g. by the reactive driver, have no current request
+    @Bean
+    public MongoClientSettingsBuilderCustomizer requestTimingCommandListener() {
+        CommandListener listener = new CommandListener() {
+            @Override
+            public void commandSucceeded(CommandSucceededEvent event) {
+                RequestTiming.record(RequestTiming.Phase.DB, event.getElapsedTime(TimeUnit.NANOSECONDS));
+            }
+
+            @Override
+            public void commandFailed(CommandFailedEvent event) {
+                RequestTiming.record(RequestTiming.Phase.DB, event.getElapsedTime(TimeUnit.NANOSECONDS));
+            }
+        };
+        return settings -> settings.addCommandListener(listener);
+    }
+}
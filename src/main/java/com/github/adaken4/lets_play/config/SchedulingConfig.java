@@ -0,0 +1,12 @@
+package com.github.adaken4.lets_play.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Enables @Scheduled background work (cascade deletes of deleted users' products).
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
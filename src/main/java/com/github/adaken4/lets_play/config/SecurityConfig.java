@@ -1,11 +1,16 @@
 package com.github.adaken4.lets_play.config;
 
+import java.time.Duration;
+import java.util.Map;
+
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
@@ -15,16 +20,41 @@ import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.security.config.http.SessionCreationPolicy;
 import com.github.adaken4.lets_play.security.AuthTokenFilter;
+import com.github.adaken4.lets_play.security.BCryptCalibrator;
+import com.github.adaken4.lets_play.security.BoundedPasswordEncoder;
+import com.github.adaken4.lets_play.security.CalibratedBCryptPasswordEncoder;
 import com.github.adaken4.lets_play.security.CustomAccessDeniedHandler;
+import com.github.adaken4.lets_play.security.RateLimitFilter;
 
 @Configuration
 @EnableWebSecurity
 @EnableMethodSecurity
 public class SecurityConfig {
-    // Password encoder bean used for hashing user passwords
+    // BCrypt cost: fixed if configured, otherwise calibrated to the target latency at startup
+    @Bean
+    public CalibratedBCryptPasswordEncoder bcryptPasswordEncoder(
+            @Value("${app.security.password.strength}") int strength,
+            @Value("${app.security.password.target-latency}") Duration targetLatency,
+            @Value("${app.security.password.min-strength}") int minStrength,
+            @Value("${app.security.password.max-strength}") int maxStrength) {
+        return new CalibratedBCryptPasswordEncoder(strength > 0 ? strength
+                : BCryptCalibrator.calibrate(targetLatency, minStrength, maxStrength));
+    }
+
+    // Password encoder bean used for hashing user passwords.
+    // New hashes are stored as {bcrypt}<hash>; legacy unprefixed BCrypt hashes still match,
+    // and any hash not at the calibrated cost is rehashed on the next successful login.
+    // BCrypt runs on a dedicated bounded pool so login bursts cannot exhaust request threads.
+    // Primary: the raw BCrypt bean above is also a PasswordEncoder, only this one is injected.
     @Bean
-    public BCryptPasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    @Primary
+    public BoundedPasswordEncoder passwordEncoder(CalibratedBCryptPasswordEncoder bcrypt,
+            @Value("${app.security.hashing.threads}") int threads,
+            @Value("${app.security.hashing.queue-capacity}") int queueCapacity,
+            @Value("${app.security.hashing.retry-after-seconds}") long retryAfterSeconds) {
+        DelegatingPasswordEncoder delegating = new DelegatingPasswordEncoder("bcrypt", Map.of("bcrypt", bcrypt));
+        delegating.setDefaultPasswordEncoderForMatches(bcrypt);
+        return new BoundedPasswordEncoder(delegating, threads, queueCapacity, retryAfterSeconds);
     }
 
     // Exposes AuthenticationManager so it can be injected (e.g. into services/controllers)
@@ -37,6 +67,14 @@ public class SecurityConfig {
     @Autowired
     private AuthTokenFilter authTokenFilter;
 
+    // Per-IP/per-user token buckets, checked once the caller is known
+    @Autowired
+    private RateLimitFilter rateLimitFilter;
+
+    // Server-Timing header for sampled/admin responses, once the caller is known
+    @Autowired
+    private ServerTimingFilter serverTimingFilter;
+
     // Main security filter chain configuration
     @Bean
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
@@ -56,14 +94,20 @@ public class SecurityConfig {
             // Configure URL-based authorization rules
             .authorizeHttpRequests(auth -> auth
                 .requestMatchers(HttpMethod.GET, "/api/products/**").permitAll()
+                .requestMatchers(HttpMethod.GET, "/api/reactive/products/**").permitAll()
                 .requestMatchers("/api/auth/**").permitAll()
                 .requestMatchers("/error").permitAll()
+                // Metrics expose routes, collections and rate-limit state, so scrapes need an admin token
+                .requestMatchers("/actuator/health").permitAll()
+                .requestMatchers("/actuator/prometheus").hasRole("ADMIN")
                 .requestMatchers("/api/admin/**").hasRole("ADMIN")
                 .anyRequest().authenticated()
             );
 
         // Register the custom token filter before the username/password filter
         http.addFilterBefore(authTokenFilter, UsernamePasswordAuthenticationFilter.class);
+        http.addFilterAfter(rateLimitFilter, AuthTokenFilter.class);
+        http.addFilterAfter(serverTimingFilter, RateLimitFilter.class);
         
         return http.build();
     }
@@ -0,0 +1,87 @@
+package com.github.adaken4.lets_play.config;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+import org.springframework.web.util.WebUtils;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Adds a Server-Timing header with the RequestTiming breakdown to a sampled
+ * share of responses and, if enabled, to every response for an admin.
+ * Runs in the security chain after AuthTokenFilter, so the caller is known.
+ *
+ * The header can only follow serialization if the body is held back until
+ * then, so chosen responses are buffered (ContentCachingResponseWrapper);
+ * all others pass through untouched. Streaming endpoints are excluded by
+ * path (app.timing.server-timing.exclude) rather than buffered whole.
+ */
+@Component
+public class ServerTimingFilter extends OncePerRequestFilter {
+
+    private static final String HEADER = "Server-Timing";
+
+    @Value("${app.timing.server-timing.sample-rate}")
+    private double sampleRate;
+
+    @Value("${app.timing.server-timing.admins}")
+    private boolean forAdmins;
+
+    @Value("${app.timing.server-timing.exclude}")
+    private List<String> excludedPaths;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getRequestURI();
+        return excludedPaths.stream().anyMatch(path::startsWith);
+    }
+
+    // The response of an async request is written on its async dispatch
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        RequestTiming timing = RequestTiming.of(request);
+        HttpServletResponse target = response;
+        if (timing != null && !isAsyncDispatch(request) && (sampled() || (forAdmins && isAdmin()))) {
+            target = new ContentCachingResponseWrapper(response);
+        }
+        try {
+            filterChain.doFilter(request, target);
+        } finally {
+            ContentCachingResponseWrapper buffered = WebUtils.getNativeResponse(target,
+                    ContentCachingResponseWrapper.class);
+            if (buffered != null && !request.isAsyncStarted()) {
+                if (!buffered.isCommitted()) {
+                    buffered.setHeader(HEADER, timing.serverTiming());
+                }
+                buffered.copyBodyToResponse();
+            }
+        }
+    }
+
+    private boolean sampled() {
+        return sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate;
+    }
+
+    private static boolean isAdmin() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null && authentication.getAuthorities().stream()
+                .anyMatch(authority -> "ROLE_ADMIN".equals(authority.getAuthority()));
+    }
+}
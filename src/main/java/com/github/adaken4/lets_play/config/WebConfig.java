@@ -0,0 +1,56 @@
+package com.github.adaken4.lets_play.config;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.core.convert.converter.ConverterFactory;
+import org.springframework.format.FormatterRegistry;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Spring MVC customizations.
+ */
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+    @Autowired
+    private RequestTimingAdvice requestTimingAdvice;
+
+    // Case-insensitive enum request parameters (?count=none, ?format=csv);
+    // replaces only Spring's exact-name String-to-Enum conversion
+    @Override
+    public void addFormatters(FormatterRegistry registry) {
+        registry.addConverterFactory(new LenientEnumConverterFactory());
+    }
+
+    // Handler/serialization split of the request timing (Server-Timing, access log)
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(requestTimingAdvice);
+    }
+
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    private static final class LenientEnumConverterFactory implements ConverterFactory<String, Enum> {
+
+        @Override
+        public <T extends Enum> Converter<String, T> getConverter(Class<T> targetType) {
+            // Constants with a body are subclasses of their enum
+            Class<?> enumType = targetType.isEnum() ? targetType : targetType.getSuperclass();
+            Enum[] constants = (Enum[]) enumType.getEnumConstants();
+            return source -> {
+                String name = source.trim();
+                if (name.isEmpty()) {
+                    return null;
+                }
+                for (Enum constant : constants) {
+                    if (constant.name().equalsIgnoreCase(name)) {
+                        return (T) constant;
+                    }
+                }
+                // Surfaces as MethodArgumentTypeMismatchException, a 400
+                throw new IllegalArgumentException("No enum constant " + enumType.getName() + "." + name);
+            };
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.github.adaken4.lets_play.controller;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.github.adaken4.lets_play.dto.AutocompleteStatsResponse;
+import com.github.adaken4.lets_play.dto.CacheStatsResponse;
+import com.github.adaken4.lets_play.dto.CascadeDeleteJobResponse;
+import com.github.adaken4.lets_play.dto.HashingStatsResponse;
+import com.github.adaken4.lets_play.dto.ProductCacheStatsResponse;
+import com.github.adaken4.lets_play.security.BoundedPasswordEncoder;
+import com.github.adaken4.lets_play.security.JwtUtils;
+import com.github.adaken4.lets_play.security.PrincipalCache;
+import com.github.adaken4.lets_play.security.TokenVersionCache;
+import com.github.adaken4.lets_play.service.CascadeDeleteService;
+import com.github.adaken4.lets_play.service.ProductAutocompleteIndex;
+import com.github.adaken4.lets_play.service.ProductCache;
+
+@RestController
+@RequestMapping("/api/admin")
+@PreAuthorize("hasRole('ADMIN')")
+public class AdminController {
+
+    @Autowired
+    private PrincipalCache principalCache;
+    @Autowired
+    private JwtUtils jwtUtils;
+    @Autowired
+    private TokenVersionCache tokenVersionCache;
+    @Autowired
+    private BoundedPasswordEncoder passwordEncoder;
+    @Autowired
+    private ProductCache productCache;
+    @Autowired
+    private ProductAutocompleteIndex autocompleteIndex;
+    @Autowired
+    private CascadeDeleteService cascadeDeleteService;
+
+    /**
+     * GET /api/admin/caches
+     * Admin only: hit/miss/eviction counters of the in-process caches.
+     *
+     * @return cache name -> CacheStatsResponse
+     */
+    @GetMapping("/caches")
+    public ResponseEntity<Map<String, CacheStatsResponse>> getCacheStats() {
+        Map<String, CacheStatsResponse> stats = new LinkedHashMap<>();
+        stats.put("principals", principalCache.stats());
+        stats.put("verifiedTokens", jwtUtils.verifiedTokenStats());
+        stats.put("tokenVersions", tokenVersionCache.stats());
+        stats.put("products", productCache.cacheStats());
+        return ResponseEntity.ok(stats);
+    }
+
+    /**
+     * GET /api/admin/caches/products
+     * Admin only: product near-cache hit ratio, invalidations and the
+     * change-stream staleness window (write time to remote eviction).
+     *
+     * @return ProductCacheStatsResponse
+     */
+    @GetMapping("/caches/products")
+    public ResponseEntity<ProductCacheStatsResponse> getProductCacheStats() {
+        return ResponseEntity.ok(productCache.stats());
+    }
+
+    /**
+     * GET /api/admin/hashing
+     * Admin only: password hashing pool queue depth and hash latency.
+     *
+     * @return HashingStatsResponse
+     */
+    @GetMapping("/hashing")
+    public ResponseEntity<HashingStatsResponse> getHashingStats() {
+        return ResponseEntity.ok(passwordEncoder.stats());
+    }
+
+    /**
+     * GET /api/admin/autocomplete
+     * Admin only: product autocomplete index size and startup build time.
+     *
+     * @return AutocompleteStatsResponse
+     */
+    @GetMapping("/autocomplete")
+    public ResponseEntity<AutocompleteStatsResponse> getAutocompleteStats() {
+        return ResponseEntity.ok(autocompleteIndex.stats());
+    }
+
+    /**
+     * GET /api/admin/cascades
+     * Admin only: the 50 most recent product cleanup jobs of deleted users.
+     *
+     * @return List of CascadeDeleteJobResponse, newest first
+     */
+    @GetMapping("/cascades")
+    public ResponseEntity<List<CascadeDeleteJobResponse>> getCascadeDeleteJobs() {
+        return ResponseEntity.ok(cascadeDeleteService.getJobs());
+    }
+
+    /**
+     * GET /api/admin/cascades/{userId}
+     * Admin only: product cleanup progress of one deleted user.
+     *
+     * @param userId
+     * @return CascadeDeleteJobResponse, or 404 if no job exists for the user
+     */
+    @GetMapping("/cascades/{userId}")
+    public ResponseEntity<CascadeDeleteJobResponse> getCascadeDeleteJob(@PathVariable String userId) {
+        return cascadeDeleteService.getJob(userId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+}
@@ -7,9 +7,9 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -22,7 +22,11 @@ import com.github.adaken4.lets_play.dto.SignupRequest;
 import com.github.adaken4.lets_play.model.User;
 import com.github.adaken4.lets_play.repository.UserRepository;
 import com.github.adaken4.lets_play.security.JwtUtils;
+import com.github.adaken4.lets_play.security.RateLimiter;
+import com.github.adaken4.lets_play.security.RateLimiter.Budget;
+import com.github.adaken4.lets_play.service.CustomUserDetailsService.UserDetailsImpl;
 
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 
 /**
@@ -39,20 +43,28 @@ public class AuthController {
     @Autowired
     private UserRepository userRepository;
     @Autowired
-    private BCryptPasswordEncoder encoder;
+    private PasswordEncoder encoder;
     @Autowired
     private JwtUtils jwtUtils;
+    @Autowired
+    private RateLimiter rateLimiter;
 
     /**
      * Registers new user with email uniqueness check and BCrypt password hashing.
      * 
      * @param signUpRequest validated signup DTO (username, email, password)
+     * @param request       for the client address the account budget is checked against
      * @return success message or bad request if email exists
      */
     @PostMapping("/register")
-    public ResponseEntity<?> registerUser(@Valid @RequestBody SignupRequest signUpRequest) {
+    public ResponseEntity<?> registerUser(@Valid @RequestBody SignupRequest signUpRequest,
+            HttpServletRequest request) {
+        // Per-account budget on top of RateLimitFilter's per-IP one, spent by probing taken emails
+        rateLimiter.requireUser(Budget.AUTH, signUpRequest.getEmail(), request.getRemoteAddr());
+
         // Check email uniqueness
         if (userRepository.existsByEmail(signUpRequest.getEmail())) {
+            rateLimiter.chargeUser(Budget.AUTH, signUpRequest.getEmail(), request.getRemoteAddr());
             return ResponseEntity
                     .badRequest()
                     .body(new MessageResponse("Error: Email is already in use!"));
@@ -73,34 +85,49 @@ public class AuthController {
 
     /**
      * Authenticates user credentials and returns JWT token response.
+     * The user document is read once, by CustomUserDetailsService during
+     * authentication, and carried to the response through the principal.
      * 
      * @param loginRequest validated login DTO (email, password)
+     * @param request      for the client address the account budget is checked against
      * @return JwtResponse with token, user details, and role
      */
     @PostMapping("/login")
-    public ResponseEntity<?> authenticateUser(@Valid @RequestBody LoginRequest loginRequest) {
+    public ResponseEntity<?> authenticateUser(@Valid @RequestBody LoginRequest loginRequest,
+            HttpServletRequest request) {
+        // Per-account budget: caps password guesses for one email across all client IPs.
+        // Only failures are charged, and addresses the account has logged in from are
+        // exempt, so guesses from elsewhere cannot lock the owner out.
+        rateLimiter.requireUser(Budget.AUTH, loginRequest.getEmail(), request.getRemoteAddr());
+
         // Authenticate via Spring Security (calls CustomUserDetailsService +
         // PasswordEncoder)
-        Authentication authentication = authenticationManager.authenticate(
-                new UsernamePasswordAuthenticationToken(
-                        loginRequest.getEmail(),
-                        loginRequest.getPassword()));
+        Authentication authentication;
+        try {
+            authentication = authenticationManager.authenticate(
+                    new UsernamePasswordAuthenticationToken(
+                            loginRequest.getEmail(),
+                            loginRequest.getPassword()));
+        } catch (AuthenticationException e) {
+            rateLimiter.chargeUser(Budget.AUTH, loginRequest.getEmail(), request.getRemoteAddr());
+            throw e;
+        }
+        rateLimiter.trustAddress(loginRequest.getEmail(), request.getRemoteAddr());
 
         // Store authentication in SecurityContext (for current request)
         SecurityContextHolder.getContext().setAuthentication(authentication);
 
-        // Generate JWT token using email as subject
-        String jwt = jwtUtils.generateTokenFromUsername(loginRequest.getEmail());
+        // Principal already holds the user loaded during authentication
+        UserDetailsImpl user = (UserDetailsImpl) authentication.getPrincipal();
 
-        // Build JWT response with user details
-        UserDetails userDetails = (UserDetails) authentication.getPrincipal();
-        User user = userRepository.findByEmail(userDetails.getUsername()).get();
+        // Generate JWT token using email as subject, plus ID/role/version claims for stateless mode
+        String jwt = jwtUtils.generateToken(user.getUsername(), user.getId(), user.getRole(), user.getTokenVersion());
 
         return ResponseEntity.ok(new JwtResponse(
                 jwt, // JWT token string
                 "Bearer", // Token type prefix
                 user.getId(), // User ID for frontend
-                user.getEmail(), // Email/username
+                user.getUsername(), // Email/username
                 user.getRole() // Role for UI permissions
         ));
     }
@@ -1,12 +1,19 @@
 package com.github.adaken4.lets_play.controller;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.net.URI;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Page;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -14,16 +21,30 @@ import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import com.github.adaken4.lets_play.dto.CountMode;
+import com.github.adaken4.lets_play.dto.CursorPage;
+import com.github.adaken4.lets_play.dto.ExportFormat;
+import com.github.adaken4.lets_play.dto.PagedResponse;
 import com.github.adaken4.lets_play.dto.ProductCreationRequest;
 import com.github.adaken4.lets_play.dto.ProductResponse;
+import com.github.adaken4.lets_play.dto.ProductSuggestion;
 import com.github.adaken4.lets_play.dto.ProductUpdateRequest;
+import com.github.adaken4.lets_play.exception.PreconditionFailedException;
+import com.github.adaken4.lets_play.repository.ProductFilter;
+import com.github.adaken4.lets_play.service.ProductAutocompleteIndex;
+import com.github.adaken4.lets_play.service.ProductExportService;
+import com.github.adaken4.lets_play.service.ProductImportService;
 import com.github.adaken4.lets_play.service.ProductService;
 import com.github.adaken4.lets_play.service.CustomUserDetailsService.UserDetailsImpl;
 
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 
 @RestController
@@ -33,6 +54,15 @@ public class ProductController {
     @Autowired
     private ProductService productService;
 
+    @Autowired
+    private ProductImportService productImportService;
+
+    @Autowired
+    private ProductExportService productExportService;
+
+    @Autowired
+    private ProductAutocompleteIndex autocompleteIndex;
+
     /**
      * GET /api/products
      * Public endpoint: returns paginated products from the store
@@ -54,18 +84,177 @@ public class ProductController {
         return ResponseEntity.ok(productService.getAllProducts(pageable));
     }
 
+    /**
+     * GET /api/products?count=none|estimated|exact
+     * Public endpoint: paginated products without paying for an exact count
+     * 
+     * count=none skips the count query and only reports hasNext;
+     * count=estimated reports a cached estimate with totalApproximate=true;
+     * count=exact matches the default listing.
+     * 
+     * @param count counting strategy
+     * @param pageable
+     * @return PagedResponse of ProductResponse
+     */
+    @GetMapping(params = { "count", "!cursor" })
+    public ResponseEntity<PagedResponse<ProductResponse>> getProductsPage(@RequestParam CountMode count,
+            @PageableDefault(size = 20) Pageable pageable) {
+        return ResponseEntity.ok(productService.getProductsPage(pageable, count));
+    }
+
+    /**
+     * GET /api/products?cursor=
+     * Public endpoint: keyset (cursor) pagination over products
+     * 
+     * Start with an empty cursor and optional size/sort, then pass back the
+     * returned "next" value until it is null:
+     * ?cursor=&size=50&sort=price,desc
+     * ?cursor=eyJmIjoi...&size=50
+     * 
+     * Sortable by id, name or price. Each page is one index range scan,
+     * with no skip and no count query, so deep pages cost the same as the first.
+     * 
+     * @param cursor opaque cursor from the previous page, or empty
+     * @param pageable page size and (first page only) sort
+     * @return CursorPage of ProductResponse
+     */
+    @GetMapping(params = "cursor")
+    public ResponseEntity<CursorPage<ProductResponse>> getProductsByCursor(@RequestParam String cursor,
+            @PageableDefault(size = 20) Pageable pageable) {
+        return ResponseEntity.ok(productService.getProductsByCursor(cursor, pageable));
+    }
+
+    /**
+     * GET /api/products/search
+     * Public endpoint: searches products by text, owner and price range
+     * ?q=wireless+mouse&maxPrice=50
+     * ?userId=...&minPrice=10&sort=price,desc&page=2
+     * 
+     * With q, results are ranked by relevance (name matches weigh more than
+     * description matches); without q they are in price order.
+     * Pages report hasNext only, no total.
+     * 
+     * @param q        full-text terms, optional
+     * @param userId   owner filter, optional
+     * @param minPrice inclusive lower price bound, optional
+     * @param maxPrice inclusive upper price bound, optional
+     * @param pageable
+     * @return PagedResponse of ProductResponse
+     */
+    @GetMapping(value = "/search", params = "!cursor")
+    public ResponseEntity<PagedResponse<ProductResponse>> searchProducts(@RequestParam(required = false) String q,
+            @RequestParam(required = false) String userId,
+            @RequestParam(required = false) Double minPrice,
+            @RequestParam(required = false) Double maxPrice,
+            @PageableDefault(size = 20) Pageable pageable) {
+        return ResponseEntity.ok(productService.searchProducts(new ProductFilter(q, userId, minPrice, maxPrice),
+                pageable));
+    }
+
+    /**
+     * GET /api/products/search?cursor=
+     * Public endpoint: same filters as above with keyset paging in price/_id order
+     * ?cursor=&minPrice=10&maxPrice=100&size=50
+     * ?cursor=eyJmIjoi...&minPrice=10&maxPrice=100&size=50
+     * 
+     * Pass the same filters with every page. Text terms (q) only filter here,
+     * results are not ranked by relevance.
+     * 
+     * @param cursor   opaque cursor from the previous page, or empty
+     * @param q        full-text terms, optional
+     * @param userId   owner filter, optional
+     * @param minPrice inclusive lower price bound, optional
+     * @param maxPrice inclusive upper price bound, optional
+     * @param pageable page size and (first page only) price sort direction
+     * @return CursorPage of ProductResponse
+     */
+    @GetMapping(value = "/search", params = "cursor")
+    public ResponseEntity<CursorPage<ProductResponse>> searchProductsByCursor(@RequestParam String cursor,
+            @RequestParam(required = false) String q,
+            @RequestParam(required = false) String userId,
+            @RequestParam(required = false) Double minPrice,
+            @RequestParam(required = false) Double maxPrice,
+            @PageableDefault(size = 20) Pageable pageable) {
+        return ResponseEntity.ok(productService.searchProductsByCursor(
+                new ProductFilter(q, userId, minPrice, maxPrice), cursor, pageable));
+    }
+
+    /**
+     * GET /api/products/autocomplete?q=wirel&limit=10
+     * Public endpoint: type-ahead suggestions for product names
+     * 
+     * Served from the in-memory ProductAutocompleteIndex, no database query.
+     * Matches names with a word starting with each typed word, best first:
+     * names starting with the text, then shorter names.
+     * 
+     * @param q     text typed so far
+     * @param limit maximum suggestions (1-50, default 10)
+     * @return ProductSuggestion list, empty for blank input
+     */
+    @GetMapping("/autocomplete")
+    public ResponseEntity<List<ProductSuggestion>> autocomplete(@RequestParam String q,
+            @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(autocompleteIndex.suggest(q, Math.clamp(limit, 1, 50)));
+    }
+
+    /**
+     * GET /api/products/export
+     * Admin only: streams the whole catalog, or the products matching the
+     * optional owner and price filters, straight from a database cursor
+     * ?format=csv&minPrice=10&maxPrice=100
+     * ?format=ndjson&userId=...
+     * 
+     * Rows are flushed every app.products.export.batch-size products, and the
+     * body is gzip-compressed when the client sends Accept-Encoding: gzip
+     * 
+     * @param format   ndjson (default) or csv
+     * @param userId   owner filter, optional
+     * @param minPrice inclusive lower price bound, optional
+     * @param maxPrice inclusive upper price bound, optional
+     * @param acceptEncoding
+     * @param response
+     * @throws IOException
+     */
+    @GetMapping("/export")
+    @PreAuthorize("hasRole('ADMIN')")
+    public void exportProducts(@RequestParam(defaultValue = "ndjson") ExportFormat format,
+            @RequestParam(required = false) String userId,
+            @RequestParam(required = false) Double minPrice,
+            @RequestParam(required = false) Double maxPrice,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            HttpServletResponse response) throws IOException {
+        response.setContentType(format.contentType());
+        response.setCharacterEncoding("UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=products." + format.extension());
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+
+        boolean gzip = acceptEncoding != null && acceptEncoding.toLowerCase().contains("gzip");
+        if (!gzip) {
+            productExportService.exportProducts(format, userId, minPrice, maxPrice, response.getOutputStream());
+            return;
+        }
+        response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+        // syncFlush: each batch flush also emits the compressed bytes buffered so far
+        try (OutputStream out = new GZIPOutputStream(response.getOutputStream(), 8192, true)) {
+            productExportService.exportProducts(format, userId, minPrice, maxPrice, out);
+        }
+    }
+
     /**
      * GET /api/products/{id}
      * Public endpoint: returns a single product by ID, if found
+     * 
+     * Sends the product version as ETag; a matching If-None-Match
+     * is answered by Spring MVC with 304 Not Modified and no body
      *
      * @param id
-     * @return ProductResponse if found, 404 if not found
+     * @return ProductResponse if found, 304 if unchanged, 404 if not found
      */
     @GetMapping("/{id}")
     public ResponseEntity<ProductResponse> getProduct(@PathVariable String id) {
         // Delegates to service, automatically handles Optional<ProductResponse>
         return productService.getProductById(id)
-                .map(ResponseEntity::ok)
+                .map(product -> ResponseEntity.ok().eTag(etag(product)).body(product))
                 .orElse(ResponseEntity.notFound().build());
     }
 
@@ -87,43 +276,110 @@ public class ProductController {
         return ResponseEntity.created(location(response.id())).body(response);
     }
 
+    /**
+     * POST /api/products/import
+     * Protected endpoint: bulk-creates products owned by the authenticated user
+     * 
+     * Accepts NDJSON (application/x-ndjson, one ProductCreationRequest per line)
+     * or a JSON array (application/json). The body is streamed and inserted in
+     * chunks of app.products.import.chunk-size, so payload size does not affect memory.
+     * 
+     * Responds 200 with an NDJSON report written as chunks complete:
+     * {"line":1,"id":"...","errors":null}
+     * {"line":2,"id":null,"errors":{"price":"must be greater than 0"}}
+     * {"received":2,"created":1,"failed":1}
+     * 
+     * @param request
+     * @param response
+     * @param auth
+     * @throws IOException
+     */
+    @PostMapping(value = "/import",
+            consumes = { MediaType.APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_JSON_VALUE })
+    public void importProducts(HttpServletRequest request, HttpServletResponse response, Authentication auth)
+            throws IOException {
+        String userId = ((UserDetailsImpl) auth.getPrincipal()).getId();
+        // Checked before the report starts, so an unknown owner is still a plain 404
+        productImportService.requireOwner(userId);
+
+        boolean jsonArray = MediaType.APPLICATION_JSON
+                .isCompatibleWith(MediaType.parseMediaType(request.getContentType()));
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        productImportService.importProducts(request.getInputStream(), jsonArray, userId, response.getOutputStream());
+    }
+
     /**
      * PATCH /api/products/{id}
      * Protected endpoint: updates an existing product by ID
      * 
+     * Optional If-Match makes the update conditional on the product's ETag
+     * 
      * @param id
      * @param request
+     * @param ifMatch ETag the client last saw, if any
      * @param auth
-     * @return Updated ProductResponse
+     * @return Updated ProductResponse with new ETag, 412 if modified meanwhile
      */
     @PatchMapping("/{id}")
     public ResponseEntity<ProductResponse> updateProduct(@PathVariable String id,
             @RequestBody ProductUpdateRequest request,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
             Authentication auth) {
         // Extract authenticated user details from Spring Security context
         UserDetailsImpl userDetails = (UserDetailsImpl) auth.getPrincipal();
-        return ResponseEntity.ok(productService.updateProduct(id, request, userDetails.getId(),
-                userDetails.getAuthorities().toString()));
+        ProductResponse response = productService.updateProduct(id, request, userDetails.getId(),
+                userDetails.getAuthorities().toString(), expectedVersion(ifMatch));
+        return ResponseEntity.ok().eTag(etag(response)).body(response);
     }
 
     /**
      * DELETE /api/products/{id}
      * Protected endpoint: deletes a product by ID if user is ADMIN or product owner
      * 
+     * Optional If-Match makes the delete conditional on the product's ETag
+     * 
      * @param id
+     * @param ifMatch ETag the client last saw, if any
      * @param auth
-     * @return Void on success, 404 if not found, 403 if unauthorized
+     * @return Void on success, 404 if not found, 403 if unauthorized, 412 if modified meanwhile
      */
     @DeleteMapping("/{id}")
-    public ResponseEntity<Void> deleteProduct(@PathVariable String id, Authentication auth) {
+    public ResponseEntity<Void> deleteProduct(@PathVariable String id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            Authentication auth) {
         // Extract authenticated user details from Spring Security context
         UserDetailsImpl userDetails = (UserDetailsImpl) auth.getPrincipal();
         // Calls service to delete product, passing user details for permission check
-        productService.deleteProduct(id, userDetails.getId(), userDetails.getAuthorities().toString());
+        productService.deleteProduct(id, userDetails.getId(), userDetails.getAuthorities().toString(),
+                expectedVersion(ifMatch));
         // Return 204 No Content on successful deletion
         return ResponseEntity.noContent().build();
     }
 
+    // ETag of a product representation (shared with ReactiveProductController)
+    static String etag(ProductResponse product) {
+        return "\"" + product.version() + "\"";
+    }
+
+    /**
+     * Parses an If-Match header ("3", W/"3" or *) into the expected version.
+     * Missing or * means any version is acceptable.
+     */
+    private Long expectedVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String value = ifMatch.trim();
+        if (value.startsWith("W/")) {
+            value = value.substring(2);
+        }
+        try {
+            return Long.valueOf(value.replace("\"", ""));
+        } catch (NumberFormatException e) {
+            throw new PreconditionFailedException("If-Match does not match any product version");
+        }
+    }
+
     private URI location(String id) {
         return ServletUriComponentsBuilder.fromCurrentRequest()
                 .path("/{id}").buildAndExpand(id).toUri();
@@ -0,0 +1,88 @@
+package com.github.adaken4.lets_play.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.web.PageableDefault;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.github.adaken4.lets_play.dto.ProductResponse;
+import com.github.adaken4.lets_play.repository.ProductFilter;
+import com.github.adaken4.lets_play.service.ReactiveProductService;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Non-blocking variant of the public product reads.
+ *
+ * Runs in the same servlet filter chain as ProductController, so
+ * AuthTokenFilter and the security rules apply unchanged. The request thread
+ * is released while MongoDB works; lists are streamed as NDJSON, one product
+ * per line, and Spring MVC requests the next product from the database cursor
+ * only after the previous one was written (back-pressure from slow clients).
+ */
+@RestController
+@RequestMapping("/api/reactive/products")
+@Profile("!inmemory")
+public class ReactiveProductController {
+
+    @Autowired
+    private ReactiveProductService reactiveProductService;
+
+    /**
+     * GET /api/reactive/products
+     * Public endpoint: streams one page of products as NDJSON
+     * ?page=0&size=20&sort=name,asc
+     *
+     * @param pageable
+     * @return ProductResponse stream, no paging metadata
+     */
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<ProductResponse> getProducts(@PageableDefault(size = 20) Pageable pageable) {
+        return reactiveProductService.getProducts(pageable);
+    }
+
+    /**
+     * GET /api/reactive/products/search
+     * Public endpoint: same filters and ordering as GET /api/products/search,
+     * streamed as NDJSON
+     * ?q=wireless+mouse&maxPrice=50
+     *
+     * @param q        full-text terms, optional
+     * @param userId   owner filter, optional
+     * @param minPrice inclusive lower price bound, optional
+     * @param maxPrice inclusive upper price bound, optional
+     * @param pageable
+     * @return ProductResponse stream, no paging metadata
+     */
+    @GetMapping(value = "/search", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<ProductResponse> searchProducts(@RequestParam(required = false) String q,
+            @RequestParam(required = false) String userId,
+            @RequestParam(required = false) Double minPrice,
+            @RequestParam(required = false) Double maxPrice,
+            @PageableDefault(size = 20) Pageable pageable) {
+        return reactiveProductService.searchProducts(new ProductFilter(q, userId, minPrice, maxPrice), pageable);
+    }
+
+    /**
+     * GET /api/reactive/products/{id}
+     * Public endpoint: returns a single product by ID, with the same ETag /
+     * If-None-Match handling as GET /api/products/{id}
+     *
+     * @param id
+     * @return ProductResponse if found, 304 if unchanged, 404 if not found
+     */
+    @GetMapping("/{id}")
+    public Mono<ResponseEntity<ProductResponse>> getProduct(@PathVariable String id) {
+        return reactiveProductService.getProductById(id)
+                .map(product -> ResponseEntity.ok().eTag(ProductController.etag(product)).body(product))
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+}
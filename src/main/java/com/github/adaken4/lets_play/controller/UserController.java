@@ -13,13 +13,17 @@ import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 import org.springframework.web.bind.annotation.RequestBody;
 
+import com.github.adaken4.lets_play.dto.CursorPage;
+import com.github.adaken4.lets_play.dto.ProductSummary;
 import com.github.adaken4.lets_play.dto.UserCreationRequest;
 import com.github.adaken4.lets_play.dto.UserResponse;
 import com.github.adaken4.lets_play.dto.UserUpdateRequest;
+import com.github.adaken4.lets_play.service.ProductService;
 import com.github.adaken4.lets_play.service.UserService;
 import com.github.adaken4.lets_play.service.CustomUserDetailsService.UserDetailsImpl;
 
@@ -34,6 +38,9 @@ public class UserController {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private ProductService productService;
+
     /**
      * POST /api/users - Admin creates a new user with a specific role.
      */
@@ -57,6 +64,35 @@ public class UserController {
         return ResponseEntity.ok(userService.findById(userId));
     }
 
+    /**
+     * GET /api/users/me/products?cursor=&size=20
+     * Lists the authenticated user's products, keyset-paginated in creation-ID order.
+     * Start without a cursor (or an empty one), then pass back "next" until it is null.
+     * @param cursor opaque cursor from the previous page, optional
+     * @param auth Authentication object containing user details (principal).
+     * @return CursorPage of ProductSummary (id, name, price)
+     */
+    @GetMapping("/me/products")
+    public ResponseEntity<CursorPage<ProductSummary>> getMyProducts(
+            @RequestParam(defaultValue = "") String cursor,
+            @PageableDefault(size = 20) Pageable pageable, Authentication auth) {
+        String userId = ((UserDetailsImpl) auth.getPrincipal()).getId();
+        return ResponseEntity.ok(productService.getProductsByOwner(userId, cursor, pageable));
+    }
+
+    /**
+     * GET /api/users/{id}/products?cursor=&size=20
+     * Admin only: same listing for any user, 404 if the user does not exist.
+     * @return CursorPage of ProductSummary (id, name, price)
+     */
+    @GetMapping("/{id}/products")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<CursorPage<ProductSummary>> getUserProducts(@PathVariable String id,
+            @RequestParam(defaultValue = "") String cursor,
+            @PageableDefault(size = 20) Pageable pageable) {
+        return ResponseEntity.ok(productService.getProductsOfUser(id, cursor, pageable));
+    }
+
     /**
      * GET /api/users/{id}
      * Reserved for ADMINS to audit specific user accounts.
@@ -78,6 +114,17 @@ public class UserController {
        return ResponseEntity.ok(userService.findAllUsers(pageable));
     }
 
+    /**
+     * GET /api/users?cursor= - Admin only keyset (cursor) listing of users.
+     * Start with an empty cursor, then pass back "next"; sortable by id, name or email.
+     */
+    @GetMapping(params = "cursor")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<CursorPage<UserResponse>> getUsersByCursor(@RequestParam String cursor,
+            @PageableDefault(size = 20) Pageable pageable) {
+        return ResponseEntity.ok(userService.findUsersByCursor(cursor, pageable));
+    }
+
     /**
      * PATCH /api/users/{id}
      * 
@@ -0,0 +1,11 @@
+package com.github.adaken4.lets_play.dto;
+
+/**
+ * Size of the product autocomplete index; ready turns true once the startup scan completes.
+ */
+public record AutocompleteStatsResponse(
+        boolean ready,
+        long products,
+        long entries,
+        long buildMillis) {
+}
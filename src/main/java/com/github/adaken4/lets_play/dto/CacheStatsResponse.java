@@ -0,0 +1,22 @@
+package com.github.adaken4.lets_play.dto;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+public record CacheStatsResponse(
+        long size,
+        long hits,
+        long misses,
+        double hitRate,
+        long evictions) {
+
+    public static CacheStatsResponse from(Cache<?, ?> cache) {
+        CacheStats stats = cache.stats();
+        return new CacheStatsResponse(
+                cache.estimatedSize(),
+                stats.hitCount(),
+                stats.missCount(),
+                stats.hitRate(),
+                stats.evictionCount());
+    }
+}
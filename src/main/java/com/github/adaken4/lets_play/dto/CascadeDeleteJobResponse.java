@@ -0,0 +1,24 @@
+package com.github.adaken4.lets_play.dto;
+
+import java.time.Instant;
+
+import com.github.adaken4.lets_play.model.CascadeDeleteJob;
+
+/**
+ * Progress of a deleted user's product cleanup; total is null until the job first runs.
+ */
+public record CascadeDeleteJobResponse(
+        String userId,
+        CascadeDeleteJob.Status status,
+        Long total,
+        long deleted,
+        Instant createdAt,
+        Instant startedAt,
+        Instant updatedAt,
+        Instant finishedAt) {
+
+    public static CascadeDeleteJobResponse from(CascadeDeleteJob job) {
+        return new CascadeDeleteJobResponse(job.getUserId(), job.getStatus(), job.getTotal(), job.getDeleted(),
+                job.getCreatedAt(), job.getStartedAt(), job.getUpdatedAt(), job.getFinishedAt());
+    }
+}
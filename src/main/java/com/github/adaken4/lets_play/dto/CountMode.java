@@ -0,0 +1,12 @@
+package com.github.adaken4.lets_play.dto;
+
+/**
+ * How a paged listing computes its total:
+ * EXACT runs countDocuments, ESTIMATED uses collection metadata (cached),
+ * NONE skips counting and only reports whether another page exists.
+ */
+public enum CountMode {
+    EXACT,
+    ESTIMATED,
+    NONE
+}
@@ -0,0 +1,14 @@
+package com.github.adaken4.lets_play.dto;
+
+import java.util.List;
+
+/**
+ * One page of a keyset-paginated listing.
+ * Pass {@code next} back as the {@code cursor} parameter to fetch the following page;
+ * it is null on the last page.
+ */
+public record CursorPage<T>(
+        List<T> content,
+        int size,
+        String next) {
+}
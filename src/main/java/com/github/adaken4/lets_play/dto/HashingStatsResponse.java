@@ -0,0 +1,12 @@
+package com.github.adaken4.lets_play.dto;
+
+public record HashingStatsResponse(
+        int threads,
+        int activeThreads,
+        int queueDepth,
+        int queueCapacity,
+        long completed,
+        long rejected,
+        double averageLatencyMs,
+        double maxLatencyMs) {
+}
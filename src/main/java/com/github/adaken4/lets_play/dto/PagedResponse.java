@@ -0,0 +1,15 @@
+package com.github.adaken4.lets_play.dto;
+
+import java.util.List;
+
+/**
+ * Offset page whose total may be exact, approximate or absent (count=none).
+ */
+public record PagedResponse<T>(
+        List<T> content,
+        int page,
+        int size,
+        boolean hasNext,
+        Long totalElements,
+        boolean totalApproximate) {
+}
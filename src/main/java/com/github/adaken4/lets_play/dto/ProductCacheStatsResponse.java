@@ -0,0 +1,21 @@
+package com.github.adaken4.lets_play.dto;
+
+public record ProductCacheStatsResponse(
+        CacheStatsResponse cache,
+        long localInvalidations,
+        long remoteInvalidations,
+        double averageStalenessMs,
+        double maxStalenessMs,
+        ChangeStreamState changeStream,
+        long changeStreamResubscriptions) {
+
+    /**
+     * Products change-stream subscription that feeds remote invalidations.
+     * While it is not ACTIVE, writes from other replicas only leave the cache by TTL.
+     */
+    public enum ChangeStreamState {
+        DISABLED,
+        ACTIVE,
+        RESUBSCRIBING
+    }
+}
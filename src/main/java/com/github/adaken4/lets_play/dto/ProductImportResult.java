@@ -0,0 +1,21 @@
+package com.github.adaken4.lets_play.dto;
+
+import java.util.Map;
+
+/**
+ * One line of a bulk import report: the created product ID on success,
+ * otherwise field => error message (same shape as a 400 validation body).
+ */
+public record ProductImportResult(
+        int line,
+        String id,
+        Map<String, String> errors) {
+
+    public static ProductImportResult created(int line, String id) {
+        return new ProductImportResult(line, id, null);
+    }
+
+    public static ProductImportResult failed(int line, Map<String, String> errors) {
+        return new ProductImportResult(line, null, errors);
+    }
+}
@@ -0,0 +1,10 @@
+package com.github.adaken4.lets_play.dto;
+
+/**
+ * Last line of a bulk import report.
+ */
+public record ProductImportSummary(
+        long received,
+        long created,
+        long failed) {
+}
@@ -0,0 +1,9 @@
+package com.github.adaken4.lets_play.dto;
+
+/**
+ * Autocomplete suggestion: just enough to render the drop-down and link to the product.
+ */
+public record ProductSuggestion(
+        String id,
+        String name) {
+}
@@ -0,0 +1,11 @@
+package com.github.adaken4.lets_play.dto;
+
+/**
+ * Projection for product listings: only the fields a list row shows,
+ * so the rest of the document is never read from the database.
+ */
+public record ProductSummary(
+        String id,
+        String name,
+        Double price) {
+}
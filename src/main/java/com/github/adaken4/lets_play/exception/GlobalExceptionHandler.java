@@ -1,24 +1,40 @@
 package com.github.adaken4.lets_play.exception;
 
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.authentication.InternalAuthenticationServiceException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Slf4j
 @RestControllerAdvice
 public class GlobalExceptionHandler {
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // One counter per exception type (app.exceptions{type}), cached so that
+    // counting skips the registry's meter ID lookup
+    private final Map<Class<?>, Counter> exceptionCounters = new ConcurrentHashMap<>();
+
     // Handles validation errors from @Valid annotations on request bodies
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<Map<String, String>> handleValidationExceptions(MethodArgumentNotValidException ex) {
+        countException(ex);
         Map<String, String> errors = new HashMap<>();
         // Extract field-specific validation messages (e.g. "name must not be blank")
         ex.getBindingResult().getFieldErrors()
@@ -27,10 +43,22 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errors);
     }
 
+    // Handles request parameters that cannot be converted (e.g. ?count=bogus)
+    @ExceptionHandler(MethodArgumentTypeMismatchException.class)
+    public ResponseEntity<Map<String, String>> handleTypeMismatch(MethodArgumentTypeMismatchException ex) {
+        countException(ex);
+        Map<String, String> error = new HashMap<>();
+        error.put("error", "Bad Request");
+        error.put("message", "Invalid value for parameter '" + ex.getName() + "': " + ex.getValue());
+        // Returns 400 instead of falling through to the generic 500
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+    }
+
     // Handles Java NIO file system access denied exceptions (not Spring Security
     // 403s)
     @ExceptionHandler(AccessDeniedException.class)
     public ResponseEntity<Map<String, String>> handleAccessDeniedException(AccessDeniedException ex) {
+        countException(ex);
         Map<String, String> error = new HashMap<>();
         error.put("error", "Forbidden");
         error.put("message", "You do not have permission to access this resource.");
@@ -41,6 +69,7 @@ public class GlobalExceptionHandler {
     // registration
     @ExceptionHandler(EmailAlreadyExistsException.class)
     public ResponseEntity<Map<String, String>> handleEmailAlreadyExists(EmailAlreadyExistsException ex) {
+        countException(ex);
         Map<String, String> error = new HashMap<>();
         error.put("error", "Conflict");
         error.put("message", ex.getMessage());
@@ -51,6 +80,7 @@ public class GlobalExceptionHandler {
     // Handles custom exception for when a product is not found
     @ExceptionHandler(ProductNotFoundException.class)
     public ResponseEntity<Map<String, String>> handleProductNotFound(ProductNotFoundException ex) {
+        countException(ex);
         Map<String, String> error = new HashMap<>();
         error.put("error", "Not Found");
         error.put("message", ex.getMessage());
@@ -61,6 +91,7 @@ public class GlobalExceptionHandler {
     // Handles custom exception for when a user is not found
     @ExceptionHandler(UserNotFoundException.class)
     public ResponseEntity<Map<String, String>> handleUserNotFound(UserNotFoundException ex) {
+        countException(ex);
         Map<String, String> error = new HashMap<>();
         error.put("error", "Not Found");
         error.put("message", ex.getMessage());
@@ -68,9 +99,32 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.NOT_FOUND).body(error);
     }
 
+    // Handles malformed or tampered pagination cursors
+    @ExceptionHandler(InvalidCursorException.class)
+    public ResponseEntity<Map<String, String>> handleInvalidCursor(InvalidCursorException ex) {
+        countException(ex);
+        Map<String, String> error = new HashMap<>();
+        error.put("error", "Bad Request");
+        error.put("message", ex.getMessage());
+        // Returns 400 - cursor cannot be used
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+    }
+
+    // Handles ?sort= on a field a listing cannot page by
+    @ExceptionHandler(UnsupportedSortException.class)
+    public ResponseEntity<Map<String, String>> handleUnsupportedSort(UnsupportedSortException ex) {
+        countException(ex);
+        Map<String, String> error = new HashMap<>();
+        error.put("error", "Bad Request");
+        error.put("message", ex.getMessage());
+        // Returns 400 - the listing has no index for this sort
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+    }
+
     // Handles custom exception for when a user is forbidden to access a resource
     @ExceptionHandler(ForbiddenException.class)
     public ResponseEntity<Map<String, String>> handleForbidden(ForbiddenException ex) {
+        countException(ex);
         Map<String, String> error = new HashMap<>();
         error.put("error", "Forbidden");
         error.put("message", ex.getMessage());
@@ -78,16 +132,73 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.FORBIDDEN).body(error);
     }
 
+    // Handles If-Match mismatches and concurrent writes detected by @Version
+    @ExceptionHandler({ PreconditionFailedException.class, OptimisticLockingFailureException.class })
+    public ResponseEntity<Map<String, String>> handlePreconditionFailed(RuntimeException ex) {
+        countException(ex);
+        Map<String, String> error = new HashMap<>();
+        error.put("error", "Precondition Failed");
+        error.put("message", ex instanceof PreconditionFailedException ? ex.getMessage()
+                : "Precondition failed: resource was modified concurrently");
+        // Returns 412 - client must re-read and retry
+        return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).body(error);
+    }
+
+    // Handles saturation of a bounded resource (e.g. the password hashing pool)
+    @ExceptionHandler(ServiceUnavailableException.class)
+    public ResponseEntity<Map<String, String>> handleServiceUnavailable(ServiceUnavailableException ex) {
+        countException(ex);
+        Map<String, String> error = new HashMap<>();
+        error.put("error", "Service Unavailable");
+        error.put("message", ex.getMessage());
+        // Returns 503 with a hint on when to retry
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(error);
+    }
+
+    // Handles requests over a rate limit (e.g. repeated logins for one account)
+    @ExceptionHandler(TooManyRequestsException.class)
+    public ResponseEntity<Map<String, String>> handleTooManyRequests(TooManyRequestsException ex) {
+        countException(ex);
+        Map<String, String> error = new HashMap<>();
+        error.put("error", "Too Many Requests");
+        error.put("message", ex.getMessage());
+        // Returns 429 with a hint on when to retry
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(error);
+    }
+
+    // Spring Security wraps errors raised while looking up a user during login
+    // (including password hashing saturation) in InternalAuthenticationServiceException
+    @ExceptionHandler(InternalAuthenticationServiceException.class)
+    public ResponseEntity<?> handleInternalAuthentication(InternalAuthenticationServiceException ex) {
+        if (ex.getCause() instanceof ServiceUnavailableException unavailable) {
+            return handleServiceUnavailable(unavailable);
+        }
+        return handleGenericException(ex);
+    }
+
     // The "Safety Net" for Unexpected Runtime Issues (500)
     // This ensures NO raw 500s or stack traces ever reach the client.
     @ExceptionHandler(Exception.class)
     public ResponseEntity<Map<String, Object>> handleGenericException(Exception ex) {
+        countException(ex);
         // LOG the actual error internally for debugging
         log.error("Unexpected error occurred: ", ex);
 
         return buildResponse(HttpStatus.INTERNAL_SERVER_ERROR, "An unexpected error occurred. Please contact support.");
     }
 
+    private void countException(Exception ex) {
+        exceptionCounters.computeIfAbsent(ex.getClass(), type -> Counter.builder("app.exceptions")
+                .description("Exceptions turned into error responses")
+                .tag("type", type.getSimpleName())
+                .register(meterRegistry))
+                .increment();
+    }
+
     private ResponseEntity<Map<String, Object>> buildResponse(HttpStatus status, String message) {
         Map<String, Object> body = new HashMap<>();
         body.put("timestamp", System.currentTimeMillis());
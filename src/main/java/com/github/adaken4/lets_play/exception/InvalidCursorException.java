@@ -0,0 +1,7 @@
+package com.github.adaken4.lets_play.exception;
+
+public class InvalidCursorException extends RuntimeException {
+    public InvalidCursorException(String message) {
+        super("Invalid cursor: " + message);
+    }
+}
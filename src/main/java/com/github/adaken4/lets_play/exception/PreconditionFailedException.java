@@ -0,0 +1,7 @@
+package com.github.adaken4.lets_play.exception;
+
+public class PreconditionFailedException extends RuntimeException {
+    public PreconditionFailedException(String message) {
+        super("Precondition failed: " + message);
+    }
+}
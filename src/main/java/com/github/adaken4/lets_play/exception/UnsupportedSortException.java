@@ -0,0 +1,11 @@
+package com.github.adaken4.lets_play.exception;
+
+import java.util.Set;
+import java.util.TreeSet;
+
+public class UnsupportedSortException extends RuntimeException {
+    public UnsupportedSortException(String field, Set<String> supported) {
+        super("Unsupported sort field: " + field + " (supported: " + String.join(", ", new TreeSet<>(supported))
+                + ")");
+    }
+}
@@ -0,0 +1,44 @@
+package com.github.adaken4.lets_play.model;
+
+import java.time.Instant;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import lombok.Data;
+
+/**
+ * Background deletion of a deleted user's products, persisted so it survives
+ * restarts. One job per user (the job ID is the user ID). A worker holds a
+ * lease while it runs the job; an expired lease lets another worker resume it.
+ */
+@Data
+@Document(collection = "cascade_delete_jobs")
+// Claim query: unfinished jobs, oldest first
+@CompoundIndex(name = "status_createdAt", def = "{'status': 1, 'createdAt': 1}")
+public class CascadeDeleteJob {
+
+    public enum Status {
+        PENDING,
+        RUNNING,
+        DONE
+    }
+
+    @Id
+    private String userId;
+
+    private Status status;
+
+    // Products owned when the job first ran (index count), for progress reporting
+    private Long total;
+    private long deleted;
+
+    private Instant createdAt;
+    private Instant startedAt;
+    private Instant updatedAt;
+    private Instant finishedAt;
+
+    private String leaseOwner;
+    private Instant leaseUntil;
+}
@@ -1,6 +1,10 @@
 package com.github.adaken4.lets_play.model;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.index.TextIndexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import jakarta.validation.constraints.NotBlank;
@@ -10,12 +14,23 @@ import lombok.Data;
 
 @Data
 @Document(collection = "products")
+// Keyset pagination indexes: sort key + _id tie-breaker
+// userId_id serves per-owner listings, userId_price_id owner-filtered search in price order
+@CompoundIndexes({
+        @CompoundIndex(name = "name_id", def = "{'name': 1, '_id': 1}"),
+        @CompoundIndex(name = "price_id", def = "{'price': 1, '_id': 1}"),
+        @CompoundIndex(name = "userId_id", def = "{'userId': 1, '_id': 1}"),
+        @CompoundIndex(name = "userId_price_id", def = "{'userId': 1, 'price': 1, '_id': 1}")
+})
 public class Product {
     @Id
     private String id;
 
+    // Full-text search; name matches rank above description matches
     @NotBlank
+    @TextIndexed(weight = 3)
     private String name;
+    @TextIndexed
     private String description;
 
     @NotNull
@@ -23,4 +38,8 @@ public class Product {
     private Double price;
 
     private String userId;
+
+    // Optimistic concurrency: incremented on every save, exposed to clients as the ETag
+    @Version
+    private Long version;
 }
@@ -1,6 +1,8 @@
 package com.github.adaken4.lets_play.model;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
@@ -16,6 +18,11 @@ import lombok.NoArgsConstructor;
 @AllArgsConstructor
 @NoArgsConstructor
 @Document(collection = "users")
+// Keyset pagination indexes: sort key + _id tie-breaker
+@CompoundIndexes({
+        @CompoundIndex(name = "name_id", def = "{'name': 1, '_id': 1}"),
+        @CompoundIndex(name = "email_id", def = "{'email': 1, '_id': 1}")
+})
 public class User {
     @Id
     private String id;
@@ -34,4 +41,11 @@ public class User {
 
     @NotBlank
     private String role;
+
+    // Bumped whenever credentials change; stateless tokens carrying an older value are rejected
+    private long tokenVersion;
+
+    public User(String id, String name, String email, String password, String role) {
+        this(id, name, email, password, role, 0L);
+    }
 }
\ No newline at end of file
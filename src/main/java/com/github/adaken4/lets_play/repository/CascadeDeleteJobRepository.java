@@ -0,0 +1,13 @@
+package com.github.adaken4.lets_play.repository;
+
+import java.util.List;
+
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+import com.github.adaken4.lets_play.model.CascadeDeleteJob;
+
+public interface CascadeDeleteJobRepository
+        extends MongoRepository<CascadeDeleteJob, String>, CascadeDeleteJobRepositoryCustom {
+
+    List<CascadeDeleteJob> findTop50ByOrderByCreatedAtDesc();
+}
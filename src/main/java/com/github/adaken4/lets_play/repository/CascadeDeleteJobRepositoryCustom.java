@@ -0,0 +1,48 @@
+package com.github.adaken4.lets_play.repository;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+
+import com.github.adaken4.lets_play.model.CascadeDeleteJob;
+
+/**
+ * Lease-based job claiming: every state change is conditional on the caller
+ * still holding the lease, so two workers never run the same job.
+ */
+public interface CascadeDeleteJobRepositoryCustom {
+
+    /**
+     * Creates a pending job for the user, or resets a finished one.
+     * A running job is left untouched.
+     */
+    void enqueue(String userId, Instant now);
+
+    /**
+     * Atomically takes the oldest unfinished job whose lease is free or expired.
+     *
+     * @return the claimed job, or empty if there is nothing to do
+     */
+    Optional<CascadeDeleteJob> claimNext(String worker, Instant now, Duration lease);
+
+    /**
+     * Records the first run of a job: when it started and how many products it has to delete.
+     *
+     * @return false if the lease was lost to another worker
+     */
+    boolean start(String userId, String worker, long total, Instant now);
+
+    /**
+     * Adds deleted products and extends the lease.
+     *
+     * @return false if the lease was lost to another worker
+     */
+    boolean recordProgress(String userId, String worker, long deleted, Instant now, Duration lease);
+
+    /**
+     * Marks the job done and releases the lease.
+     *
+     * @return false if the lease was lost to another worker
+     */
+    boolean complete(String userId, String worker, Instant now);
+}
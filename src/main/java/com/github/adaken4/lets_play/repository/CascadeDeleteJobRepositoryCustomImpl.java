@@ -0,0 +1,98 @@
+package com.github.adaken4.lets_play.repository;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import com.github.adaken4.lets_play.model.CascadeDeleteJob;
+import com.github.adaken4.lets_play.model.CascadeDeleteJob.Status;
+
+public class CascadeDeleteJobRepositoryCustomImpl implements CascadeDeleteJobRepositoryCustom {
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Override
+    public void enqueue(String userId, Instant now) {
+        try {
+            mongoTemplate.upsert(
+                    Query.query(Criteria.where("userId").is(userId).and("status").ne(Status.RUNNING)),
+                    new Update()
+                            .set("status", Status.PENDING)
+                            .set("deleted", 0L)
+                            .set("createdAt", now)
+                            .set("updatedAt", now)
+                            .unset("total")
+                            .unset("startedAt")
+                            .unset("finishedAt"),
+                    CascadeDeleteJob.class);
+        } catch (DuplicateKeyException e) {
+            // A running job for this user already exists and will pick up every product
+        }
+    }
+
+    @Override
+    public Optional<CascadeDeleteJob> claimNext(String worker, Instant now, Duration lease) {
+        Query claimable = Query.query(new Criteria().andOperator(
+                Criteria.where("status").in(Status.PENDING, Status.RUNNING),
+                new Criteria().orOperator(
+                        Criteria.where("leaseUntil").exists(false),
+                        Criteria.where("leaseUntil").lt(now))))
+                .with(Sort.by("createdAt"));
+        return Optional.ofNullable(mongoTemplate.findAndModify(claimable,
+                new Update()
+                        .set("status", Status.RUNNING)
+                        .set("leaseOwner", worker)
+                        .set("leaseUntil", now.plus(lease))
+                        .set("updatedAt", now),
+                FindAndModifyOptions.options().returnNew(true),
+                CascadeDeleteJob.class));
+    }
+
+    @Override
+    public boolean start(String userId, String worker, long total, Instant now) {
+        return mongoTemplate.updateFirst(leased(userId, worker),
+                new Update()
+                        .set("total", total)
+                        .set("startedAt", now)
+                        .set("updatedAt", now),
+                CascadeDeleteJob.class).getMatchedCount() > 0;
+    }
+
+    @Override
+    public boolean recordProgress(String userId, String worker, long deleted, Instant now, Duration lease) {
+        return mongoTemplate.updateFirst(leased(userId, worker),
+                new Update()
+                        .inc("deleted", deleted)
+                        .set("leaseUntil", now.plus(lease))
+                        .set("updatedAt", now),
+                CascadeDeleteJob.class).getMatchedCount() > 0;
+    }
+
+    @Override
+    public boolean complete(String userId, String worker, Instant now) {
+        return mongoTemplate.updateFirst(leased(userId, worker),
+                new Update()
+                        .set("status", Status.DONE)
+                        .set("finishedAt", now)
+                        .set("updatedAt", now)
+                        .unset("leaseOwner")
+                        .unset("leaseUntil"),
+                CascadeDeleteJob.class).getMatchedCount() > 0;
+    }
+
+    private Query leased(String userId, String worker) {
+        return Query.query(Criteria.where("userId").is(userId)
+                .and("status").is(Status.RUNNING)
+                .and("leaseOwner").is(worker));
+    }
+}
@@ -0,0 +1,48 @@
+package com.github.adaken4.lets_play.repository;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+/**
+ * Builds keyset (seek) queries: rows strictly after (sortValue, _id) in the
+ * given order, limited to one page. Together with a {sortField: 1, _id: 1}
+ * index each page is a single bounded index range scan, with no skip and no count.
+ */
+final class KeysetQueries {
+
+    private KeysetQueries() {
+    }
+
+    /**
+     * @param sortField entity property to sort on ("id" for plain _id order)
+     * @param direction sort direction
+     * @param lastValue sort value of the last row of the previous page (ignored on the first page)
+     * @param lastId    _id of the last row of the previous page, null for the first page
+     * @param limit     maximum rows to return
+     */
+    static Query after(String sortField, Sort.Direction direction, Object lastValue, String lastId, int limit) {
+        Query query = new Query().limit(limit);
+        boolean byId = "id".equals(sortField);
+
+        if (lastId != null) {
+            if (byId) {
+                query.addCriteria(beyond(Criteria.where("id"), direction, lastId));
+            } else {
+                query.addCriteria(new Criteria().orOperator(
+                        beyond(Criteria.where(sortField), direction, lastValue),
+                        Criteria.where(sortField).is(lastValue)
+                                .andOperator(beyond(Criteria.where("id"), direction, lastId))));
+            }
+        }
+
+        // _id breaks ties so the order (and the cursor) is total
+        return byId
+                ? query.with(Sort.by(direction, "id"))
+                : query.with(Sort.by(direction, sortField).and(Sort.by(direction, "id")));
+    }
+
+    private static Criteria beyond(Criteria criteria, Sort.Direction direction, Object value) {
+        return direction.isAscending() ? criteria.gt(value) : criteria.lt(value);
+    }
+}
@@ -0,0 +1,16 @@
+package com.github.adaken4.lets_play.repository;
+
+/**
+ * Optional product search filters; null fields do not constrain the result.
+ *
+ * @param text     full-text terms matched against name and description
+ * @param ownerId  owner's user ID
+ * @param minPrice inclusive lower price bound
+ * @param maxPrice inclusive upper price bound
+ */
+public record ProductFilter(String text, String ownerId, Double minPrice, Double maxPrice) {
+
+    public boolean hasText() {
+        return text != null && !text.isBlank();
+    }
+}
@@ -2,10 +2,24 @@ package com.github.adaken4.lets_play.repository;
 
 import java.util.List;
 
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.mongodb.repository.MongoRepository;
 
+import com.github.adaken4.lets_play.dto.ProductSummary;
 import com.github.adaken4.lets_play.model.Product;
 
-public interface ProductRepository extends MongoRepository<Product, String> {
-    List<Product> findByUserId(String userId);
-}
\ No newline at end of file
+public interface ProductRepository extends MongoRepository<Product, String>, ProductRepositoryCustom {
+
+    // Slice return type: fetches size + 1 rows and never runs a count query
+    Slice<Product> findAllBy(Pageable pageable);
+
+    // One owner's products in _id order on the userId_id index, projected to ProductSummary.
+    // First page, then every page after the last _id seen; Limit bounds each page
+    List<ProductSummary> findByUserIdOrderByIdAsc(String userId, Limit limit);
+
+    List<ProductSummary> findByUserIdAndIdGreaterThanOrderByIdAsc(String userId, String lastId, Limit limit);
+
+    long countByUserId(String userId);
+}
@@ -0,0 +1,101 @@
+package com.github.adaken4.lets_play.repository;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import org.springframework.data.domain.Sort;
+
+import com.github.adaken4.lets_play.model.Product;
+
+/**
+ * Product queries that go beyond derived repository methods.
+ */
+public interface ProductRepositoryCustom {
+
+    /**
+     * Keyset page: products strictly after (lastValue, lastId) in sortField/_id order.
+     * A null lastId starts from the beginning.
+     */
+    List<Product> findAfter(String sortField, Sort.Direction direction, Object lastValue, String lastId, int limit);
+
+    /**
+     * Approximate collection size from metadata, without scanning.
+     */
+    long estimatedCount();
+
+    /**
+     * Sets version 0 on products stored before versioning existed, so they
+     * are not mistaken for new entities on save.
+     *
+     * @return number of products updated
+     */
+    long initializeMissingVersions();
+
+    /**
+     * Single round trip conditional update: $set of the non-null fields of
+     * changes (name, description, price) plus a version bump, applied only if
+     * the product matches the ID, the owner (unless ownerId is null, i.e. admin)
+     * and the expected version (unless null).
+     *
+     * @return updated product, or empty if nothing matched
+     */
+    Optional<Product> updateIfPermitted(String productId, String ownerId, Long expectedVersion, Product changes);
+
+    /**
+     * Single round trip conditional delete with the same predicate as updateIfPermitted.
+     *
+     * @return true if a product was deleted
+     */
+    boolean deleteIfPermitted(String productId, String ownerId, Long expectedVersion);
+
+    /**
+     * Inserts products with one unordered bulk write, so a failing document
+     * does not stop the rest of the batch.
+     *
+     * @return error message per failed position in products, empty if all were inserted
+     */
+    Map<Integer, String> bulkInsert(List<Product> products);
+
+    /**
+     * Streams products matching the optional owner and price bounds straight
+     * from a database cursor, fetching batchSize documents per round trip.
+     * Natural order, so no sort is buffered server-side.
+     * The stream must be closed to release the cursor.
+     */
+    Stream<Product> streamFiltered(String ownerId, Double minPrice, Double maxPrice, int batchSize);
+
+    /**
+     * Text search ranked by relevance. Requires filter text.
+     */
+    List<Product> searchByRelevance(ProductFilter filter, long offset, int limit);
+
+    /**
+     * Filtered products in price/_id order from an offset.
+     */
+    List<Product> searchByPrice(ProductFilter filter, Sort.Direction direction, long offset, int limit);
+
+    /**
+     * Keyset page of filtered products strictly after (lastPrice, lastId) in
+     * price/_id order. A null lastId starts from the beginning.
+     */
+    List<Product> searchAfter(ProductFilter filter, Sort.Direction direction, Object lastPrice, String lastId,
+            int limit);
+
+    /**
+     * Deletes up to batchSize of the owner's products, lowest _id first, with a
+     * single deleteMany by _id on the userId_id index.
+     *
+     * @return the batch, with no IDs once none are left
+     */
+    DeletedBatch deleteOwnedBatch(String ownerId, int batchSize);
+
+    /**
+     * @param ids     products selected for deletion, to evict from caches
+     * @param deleted products actually deleted; fewer if some were deleted or
+     *                reassigned between selection and deletion
+     */
+    record DeletedBatch(List<String> ids, long deleted) {
+    }
+}
@@ -0,0 +1,156 @@
+package com.github.adaken4.lets_play.repository;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import com.github.adaken4.lets_play.model.Product;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.client.result.DeleteResult;
+
+public class ProductRepositoryCustomImpl implements ProductRepositoryCustom {
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Override
+    public List<Product> findAfter(String sortField, Sort.Direction direction, Object lastValue, String lastId,
+            int limit) {
+        return mongoTemplate.find(KeysetQueries.after(sortField, direction, lastValue, lastId, limit), Product.class);
+    }
+
+    @Override
+    public long estimatedCount() {
+        return mongoTemplate.estimatedCount(Product.class);
+    }
+
+    @Override
+    public long initializeMissingVersions() {
+        return mongoTemplate.updateMulti(
+                Query.query(Criteria.where("version").exists(false)),
+                new Update().set("version", 0L),
+                Product.class).getModifiedCount();
+    }
+
+    @Override
+    public Optional<Product> updateIfPermitted(String productId, String ownerId, Long expectedVersion,
+            Product changes) {
+        Update update = new Update().inc("version", 1);
+        if (changes.getName() != null) {
+            update.set("name", changes.getName());
+        }
+        if (changes.getDescription() != null) {
+            update.set("description", changes.getDescription());
+        }
+        if (changes.getPrice() != null) {
+            update.set("price", changes.getPrice());
+        }
+        return Optional.ofNullable(mongoTemplate.findAndModify(
+                permitted(productId, ownerId, expectedVersion), update,
+                FindAndModifyOptions.options().returnNew(true), Product.class));
+    }
+
+    @Override
+    public boolean deleteIfPermitted(String productId, String ownerId, Long expectedVersion) {
+        return mongoTemplate.remove(permitted(productId, ownerId, expectedVersion), Product.class)
+                .getDeletedCount() > 0;
+    }
+
+    @Override
+    public Map<Integer, String> bulkInsert(List<Product> products) {
+        Map<Integer, String> errors = new HashMap<>();
+        try {
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Product.class)
+                    .insert(products)
+                    .execute();
+        } catch (DataAccessException e) {
+            // Unordered: every other document was still written, the driver reports failures by index
+            if (!(e.getCause() instanceof MongoBulkWriteException bulk)) {
+                throw e;
+            }
+            for (BulkWriteError error : bulk.getWriteErrors()) {
+                errors.put(error.getIndex(), error.getMessage());
+            }
+        }
+        return errors;
+    }
+
+    @Override
+    public Stream<Product> streamFiltered(String ownerId, Double minPrice, Double maxPrice, int batchSize) {
+        Criteria criteria = new Criteria();
+        if (ownerId != null) {
+            criteria.and("userId").is(ownerId);
+        }
+        if (minPrice != null || maxPrice != null) {
+            Criteria price = criteria.and("price");
+            if (minPrice != null) {
+                price.gte(minPrice);
+            }
+            if (maxPrice != null) {
+                price.lte(maxPrice);
+            }
+        }
+        return mongoTemplate.stream(new Query(criteria).cursorBatchSize(batchSize), Product.class);
+    }
+
+    @Override
+    public List<Product> searchByRelevance(ProductFilter filter, long offset, int limit) {
+        return mongoTemplate.find(ProductSearchQueries.byRelevance(filter, offset, limit), Product.class);
+    }
+
+    @Override
+    public List<Product> searchByPrice(ProductFilter filter, Sort.Direction direction, long offset, int limit) {
+        return mongoTemplate.find(ProductSearchQueries.byPrice(filter, direction, offset, limit), Product.class);
+    }
+
+    @Override
+    public List<Product> searchAfter(ProductFilter filter, Sort.Direction direction, Object lastPrice,
+            String lastId, int limit) {
+        return mongoTemplate.find(ProductSearchQueries.after(filter, direction, lastPrice, lastId, limit),
+                Product.class);
+    }
+
+    @Override
+    public DeletedBatch deleteOwnedBatch(String ownerId, int batchSize) {
+        Query batch = Query.query(Criteria.where("userId").is(ownerId))
+                .with(Sort.by("id"))
+                .limit(batchSize);
+        batch.fields().include("id");
+        List<String> ids = mongoTemplate.find(batch, Product.class).stream()
+                .map(Product::getId)
+                .toList();
+        if (ids.isEmpty()) {
+            return new DeletedBatch(ids, 0);
+        }
+        // Exactly the selected IDs (still on the userId_id index): a product created in the
+        // batch's _id range meanwhile is left for the next batch instead of deleted unseen
+        DeleteResult result = mongoTemplate.remove(Query.query(Criteria.where("userId").is(ownerId)
+                .and("id").in(ids)), Product.class);
+        return new DeletedBatch(ids, result.getDeletedCount());
+    }
+
+    // Ownership and version are part of the filter, so check and write are one atomic operation
+    private Query permitted(String productId, String ownerId, Long expectedVersion) {
+        Criteria criteria = Criteria.where("id").is(productId);
+        if (ownerId != null) {
+            criteria.and("userId").is(ownerId);
+        }
+        if (expectedVersion != null) {
+            criteria.and("version").is(expectedVersion);
+        }
+        return Query.query(criteria);
+    }
+}
@@ -0,0 +1,65 @@
+package com.github.adaken4.lets_play.repository;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.TextCriteria;
+import org.springframework.data.mongodb.core.query.TextQuery;
+
+/**
+ * Builds product search queries. Every shape is served by an index declared
+ * on Product: the text index for text terms, price_id for price order and
+ * userId_price_id when filtering by owner.
+ */
+final class ProductSearchQueries {
+
+    private ProductSearchQueries() {
+    }
+
+    /**
+     * Text search ranked by relevance (textScore), _id breaking ties.
+     */
+    static Query byRelevance(ProductFilter filter, long offset, int limit) {
+        Query query = TextQuery.queryText(TextCriteria.forDefaultLanguage().matching(filter.text()))
+                .sortByScore()
+                .with(Sort.by("id"))
+                .skip(offset)
+                .limit(limit);
+        return withFilters(query, filter);
+    }
+
+    /**
+     * Price/_id order from an offset.
+     */
+    static Query byPrice(ProductFilter filter, Sort.Direction direction, long offset, int limit) {
+        return after(filter, direction, null, null, limit).skip(offset);
+    }
+
+    /**
+     * Price/_id keyset page: rows strictly after (lastPrice, lastId).
+     */
+    static Query after(ProductFilter filter, Sort.Direction direction, Object lastPrice, String lastId, int limit) {
+        Query query = KeysetQueries.after("price", direction, lastPrice, lastId, limit);
+        if (filter.hasText()) {
+            query.addCriteria(TextCriteria.forDefaultLanguage().matching(filter.text()));
+        }
+        return withFilters(query, filter);
+    }
+
+    private static Query withFilters(Query query, ProductFilter filter) {
+        if (filter.ownerId() != null) {
+            query.addCriteria(Criteria.where("userId").is(filter.ownerId()));
+        }
+        if (filter.minPrice() != null || filter.maxPrice() != null) {
+            Criteria price = Criteria.where("price");
+            if (filter.minPrice() != null) {
+                price.gte(filter.minPrice());
+            }
+            if (filter.maxPrice() != null) {
+                price.lte(filter.maxPrice());
+            }
+            query.addCriteria(price);
+        }
+        return query;
+    }
+}
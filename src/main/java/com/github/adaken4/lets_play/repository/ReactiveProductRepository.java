@@ -0,0 +1,20 @@
+package com.github.adaken4.lets_play.repository;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+
+import com.github.adaken4.lets_play.model.Product;
+
+import reactor.core.publisher.Flux;
+
+/**
+ * Non-blocking counterpart of ProductRepository's read methods, on the
+ * reactive MongoDB driver. Results are streamed: the cursor fetches further
+ * batches only as the subscriber requests more products.
+ */
+public interface ReactiveProductRepository extends ReactiveMongoRepository<Product, String>,
+        ReactiveProductRepositoryCustom {
+
+    // Offset page (skip/limit from the Pageable), no count query
+    Flux<Product> findAllBy(Pageable pageable);
+}
@@ -0,0 +1,23 @@
+package com.github.adaken4.lets_play.repository;
+
+import org.springframework.data.domain.Sort;
+
+import com.github.adaken4.lets_play.model.Product;
+
+import reactor.core.publisher.Flux;
+
+/**
+ * Reactive product search, the same query shapes as ProductRepositoryCustom.
+ */
+public interface ReactiveProductRepositoryCustom {
+
+    /**
+     * Text search ranked by relevance, optionally filtered by owner and price.
+     */
+    Flux<Product> searchByRelevance(ProductFilter filter, long offset, int limit);
+
+    /**
+     * Filtered search in price/_id order from an offset.
+     */
+    Flux<Product> searchByPrice(ProductFilter filter, Sort.Direction direction, long offset, int limit);
+}
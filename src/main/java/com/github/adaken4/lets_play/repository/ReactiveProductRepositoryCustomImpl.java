@@ -0,0 +1,26 @@
+package com.github.adaken4.lets_play.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+
+import com.github.adaken4.lets_play.model.Product;
+
+import reactor.core.publisher.Flux;
+
+public class ReactiveProductRepositoryCustomImpl implements ReactiveProductRepositoryCustom {
+
+    @Autowired
+    private ReactiveMongoTemplate reactiveMongoTemplate;
+
+    @Override
+    public Flux<Product> searchByRelevance(ProductFilter filter, long offset, int limit) {
+        return reactiveMongoTemplate.find(ProductSearchQueries.byRelevance(filter, offset, limit), Product.class);
+    }
+
+    @Override
+    public Flux<Product> searchByPrice(ProductFilter filter, Sort.Direction direction, long offset, int limit) {
+        return reactiveMongoTemplate.find(ProductSearchQueries.byPrice(filter, direction, offset, limit),
+                Product.class);
+    }
+}
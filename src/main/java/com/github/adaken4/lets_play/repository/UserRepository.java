@@ -3,10 +3,21 @@ package com.github.adaken4.lets_play.repository;
 import java.util.Optional;
 
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.data.mongodb.repository.Update;
 
 import com.github.adaken4.lets_play.model.User;
 
-public interface UserRepository extends MongoRepository<User, String> {
+public interface UserRepository extends MongoRepository<User, String>, UserRepositoryCustom {
     Optional<User> findByEmail(String email);
     Boolean existsByEmail(String email);
+
+    // Projection: only the token version is read for stateless token checks
+    @Query(value = "{ '_id': ?0 }", fields = "{ 'tokenVersion': 1 }")
+    Optional<User> findTokenVersionById(String id);
+
+    // Targeted write of the password hash only (rehash on login)
+    @Query("{ '_id': ?0 }")
+    @Update("{ '$set': { 'password': ?1 } }")
+    long updatePasswordById(String id, String password);
 }
\ No newline at end of file
@@ -0,0 +1,19 @@
+package com.github.adaken4.lets_play.repository;
+
+import java.util.List;
+
+import org.springframework.data.domain.Sort;
+
+import com.github.adaken4.lets_play.model.User;
+
+/**
+ * User queries that go beyond derived repository methods.
+ */
+public interface UserRepositoryCustom {
+
+    /**
+     * Keyset page: users strictly after (lastValue, lastId) in sortField/_id order.
+     * A null lastId starts from the beginning.
+     */
+    List<User> findAfter(String sortField, Sort.Direction direction, Object lastValue, String lastId, int limit);
+}
@@ -0,0 +1,21 @@
+package com.github.adaken4.lets_play.repository;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import com.github.adaken4.lets_play.model.User;
+
+public class UserRepositoryCustomImpl implements UserRepositoryCustom {
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Override
+    public List<User> findAfter(String sortField, Sort.Direction direction, Object lastValue, String lastId,
+            int limit) {
+        return mongoTemplate.find(KeysetQueries.after(sortField, direction, lastValue, lastId, limit), User.class);
+    }
+}
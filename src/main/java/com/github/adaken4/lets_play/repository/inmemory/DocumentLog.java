@@ -0,0 +1,184 @@
+package com.github.adaken4.lets_play.repository.inmemory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Append-only redo log of one collection, split into numbered segment files
+ * (<collection>-<segment>.log). A snapshot records the first segment it does
+ * not cover; rotating at the start of each snapshot lets the older segments
+ * be deleted once it is written.
+ *
+ * Appends are written straight to the file, so they survive a crash of the
+ * process; sync() forces them to the device, so a power loss can lose the
+ * changes since the last sync. Records are redo-only and idempotent (each
+ * holds the full new document), so replaying a change the snapshot already
+ * contains is harmless.
+ *
+ * append() and rotate() are called under the DocumentStore's write lock;
+ * sync() runs concurrently from the scheduler. A failed append is cut back
+ * off the segment, so a torn record can never sit in front of later ones;
+ * if even that fails, the log refuses further appends until a restart
+ * has recovered it.
+ */
+final class DocumentLog implements Closeable {
+
+    private final Path directory;
+    private final String collection;
+
+    private volatile FileChannel channel;
+    private long segment;
+    // Size of the current segment up to the last complete record
+    private long end;
+    // Set once a torn append could not be cut off
+    private IOException failure;
+
+    private DocumentLog(Path directory, String collection, long segment) throws IOException {
+        this.directory = directory;
+        this.collection = collection;
+        this.segment = segment;
+        this.channel = openSegment(segment);
+        this.end = channel.size();
+    }
+
+    /**
+     * Opens the collection's log for appending to the given segment, which
+     * replay() has already checked and truncated.
+     */
+    static DocumentLog open(Path directory, String collection, long segment) throws IOException {
+        return new DocumentLog(directory, collection, segment);
+    }
+
+    static Path segmentFile(Path directory, String collection, long segment) {
+        return directory.resolve(String.format("%s-%020d.log", collection, segment));
+    }
+
+    /**
+     * @return segment numbers of the collection's log files, oldest first
+     */
+    static List<Long> segments(Path directory, String collection) throws IOException {
+        String prefix = collection + "-";
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(file -> file.getFileName().toString())
+                    .filter(name -> name.startsWith(prefix) && name.endsWith(".log"))
+                    .map(name -> name.substring(prefix.length(), name.length() - ".log".length()))
+                    .filter(number -> !number.isEmpty() && number.chars().allMatch(Character::isDigit))
+                    .map(Long::parseLong)
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    /**
+     * Replays one segment. The newest segment may end in a record torn by a
+     * crash; it is cut off so appends continue after the last good record.
+     * Anywhere else a bad record means the files are damaged.
+     *
+     * @return number of records replayed
+     */
+    static long replay(Path file, boolean newest, LogRecords.Consumer consumer) throws IOException {
+        long[] records = {0};
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long size = channel.size();
+            long end = LogRecords.read(channel, 0, size, (id, document) -> {
+                consumer.accept(id, document);
+                records[0]++;
+            });
+            if (end < size) {
+                if (!newest) {
+                    throw new IllegalStateException("Corrupt storage log " + file + " at offset " + end);
+                }
+                channel.truncate(end);
+                channel.force(true);
+            }
+        }
+        return records[0];
+    }
+
+    /**
+     * @param document encoded document, null for a deletion
+     */
+    void append(String id, byte[] document) throws IOException {
+        checkUsable();
+        ByteBuffer record = LogRecords.encode(id, document);
+        try {
+            while (record.hasRemaining()) {
+                channel.write(record);
+            }
+        } catch (IOException e) {
+            // Replay stops at the first bad record: later appends behind a torn one would be lost
+            try {
+                channel.truncate(end);
+            } catch (IOException truncation) {
+                e.addSuppressed(truncation);
+                failure = e;
+            }
+            throw e;
+        }
+        end += record.limit();
+    }
+
+    /**
+     * Forces appended records to the storage device.
+     */
+    void sync() throws IOException {
+        try {
+            channel.force(false);
+        } catch (ClosedChannelException e) {
+            // Rotated or closed meanwhile, which forces the segment itself
+        }
+    }
+
+    /**
+     * Continues the log in a new segment.
+     *
+     * @return the new segment's number
+     */
+    long rotate() throws IOException {
+        // Only the newest segment may end in a torn record, so it stays the newest
+        checkUsable();
+        FileChannel previous = channel;
+        previous.force(false);
+        channel = openSegment(segment + 1);
+        segment++;
+        end = channel.size();
+        previous.close();
+        return segment;
+    }
+
+    /**
+     * Deletes the segments a snapshot has made redundant.
+     */
+    void deleteBefore(long first) throws IOException {
+        for (long old : segments(directory, collection)) {
+            if (old < first) {
+                Files.deleteIfExists(segmentFile(directory, collection, old));
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.force(false);
+        channel.close();
+    }
+
+    private void checkUsable() throws IOException {
+        if (failure != null) {
+            throw new IOException("Storage log of " + collection + " is unusable after a failed append", failure);
+        }
+    }
+
+    private FileChannel openSegment(long number) throws IOException {
+        return FileChannel.open(segmentFile(directory, collection, number), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+}
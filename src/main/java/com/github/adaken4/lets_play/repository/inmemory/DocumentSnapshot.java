@@ -0,0 +1,113 @@
+package com.github.adaken4.lets_play.repository.inmemory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Snapshot of one collection (<collection>.snapshot): a header, then one
+ * PUT record per document in the log's record format.
+ *
+ *   long magic | int format | long first log segment | long data end | long count
+ *
+ * Written and read through memory-mapped windows rather than stream I/O,
+ * which keeps both the periodic write and the load at startup to a copy per
+ * document. The file is written beside the previous snapshot and renamed
+ * over it once forced to disk, so a crash leaves one or the other whole.
+ */
+final class DocumentSnapshot {
+
+    private static final long MAGIC = 0x4C50534E41505331L; // "LPSNAPS1"
+    private static final int FORMAT = 1;
+    private static final int HEADER = 36;
+
+    private static final long WINDOW = 64L << 20;
+
+    /**
+     * Header of a loaded snapshot.
+     *
+     * @param firstSegment first log segment to replay after loading
+     * @param count        documents loaded
+     */
+    record Loaded(long firstSegment, long count) {
+    }
+
+    private DocumentSnapshot() {
+    }
+
+    static Path file(Path directory, String collection) {
+        return directory.resolve(collection + ".snapshot");
+    }
+
+    /**
+     * @param documents    documents to write; may change while being written,
+     *                     as long as the log from firstSegment on has every
+     *                     change made since iteration started
+     * @param firstSegment first log segment not covered by the snapshot
+     */
+    static <T> void write(Path file, Iterable<? extends Map.Entry<String, T>> documents, Function<T, byte[]> encode,
+            long firstSegment) throws IOException {
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long count = 0;
+            long windowStart = HEADER;
+            MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_WRITE, windowStart, WINDOW);
+            for (Map.Entry<String, T> entry : documents) {
+                ByteBuffer record = LogRecords.encode(entry.getKey(), encode.apply(entry.getValue()));
+                if (record.remaining() > window.remaining()) {
+                    window.force();
+                    windowStart += window.position();
+                    window = channel.map(FileChannel.MapMode.READ_WRITE, windowStart,
+                            Math.max(WINDOW, record.remaining()));
+                }
+                window.put(record);
+                count++;
+            }
+            window.force();
+
+            // Mapping grew the file by a whole window; cut off the unused tail
+            long dataEnd = windowStart + window.position();
+            channel.truncate(dataEnd);
+            ByteBuffer header = ByteBuffer.allocate(HEADER).putLong(MAGIC).putInt(FORMAT).putLong(firstSegment)
+                    .putLong(dataEnd).putLong(count).flip();
+            while (header.hasRemaining()) {
+                channel.write(header, header.position());
+            }
+            channel.force(true);
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * @return the loaded snapshot's header, or null if there is none
+     */
+    static Loaded read(Path file, LogRecords.Consumer consumer) throws IOException {
+        if (!Files.exists(file)) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER) {
+                throw new IllegalStateException("Corrupt snapshot " + file);
+            }
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER);
+            if (header.getLong() != MAGIC || header.getInt() != FORMAT) {
+                throw new IllegalStateException("Unknown snapshot format in " + file);
+            }
+            long firstSegment = header.getLong();
+            long end = header.getLong();
+            long count = header.getLong();
+            if (end > channel.size() || LogRecords.read(channel, HEADER, end, consumer) != end) {
+                throw new IllegalStateException("Corrupt snapshot " + file);
+            }
+            return new Loaded(firstSegment, count);
+        }
+    }
+}
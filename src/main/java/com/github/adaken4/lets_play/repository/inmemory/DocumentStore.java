@@ -0,0 +1,259 @@
+package com.github.adaken4.lets_play.repository.inmemory;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DuplicateKeyException;
+
+/**
+ * One collection of the in-process storage engine: documents by _id, their
+ * secondary indexes and, when durable, the log and snapshot behind them.
+ *
+ * Writes are serialized by one lock per collection, which makes each change
+ * (condition, new document, unique checks, log record, index updates) atomic
+ * like a single-document MongoDB write. Reads take no lock. Stored documents
+ * are never modified; a change replaces the document, so readers see either
+ * the old or the new version and only copy it on the way out.
+ *
+ * @param <T> entity type
+ */
+final class DocumentStore<T> {
+
+    private static final Logger logger = LoggerFactory.getLogger(DocumentStore.class);
+
+    private final String collection;
+    private final Function<T, String> idOf;
+    private final DocumentCodec<T> codec;
+    private final List<SecondaryIndex<T>> indexes;
+
+    private final ConcurrentSkipListMap<String, T> documents = new ConcurrentSkipListMap<>();
+    private final ReentrantLock writeLock = new ReentrantLock();
+    // One snapshot at a time, and none while closing; held across file I/O, so not a monitor
+    private final ReentrantLock snapshotLock = new ReentrantLock();
+
+    // Null while the store is memory-only
+    private volatile DocumentLog log;
+    private Path snapshotFile;
+    private long changesSinceSnapshot;
+
+    DocumentStore(String collection, Function<T, String> idOf, DocumentCodec<T> codec,
+            List<SecondaryIndex<T>> indexes) {
+        this.collection = collection;
+        this.idOf = idOf;
+        this.codec = codec;
+        this.indexes = List.copyOf(indexes);
+    }
+
+    String collection() {
+        return collection;
+    }
+
+    String idOf(T document) {
+        return idOf.apply(document);
+    }
+
+    /**
+     * Atomically replaces the document with the given _id by what the change
+     * returns for it (null if absent). The change runs exactly once, under
+     * the write lock, and must not modify the document it is given.
+     *
+     * @param change returns the new document, the same one to leave it
+     *               unchanged, or null to delete it
+     * @return the document now stored, null if there is none
+     * @throws DuplicateKeyException if the new document would duplicate a
+     *                               unique index's value
+     */
+    T apply(String id, UnaryOperator<T> change) {
+        writeLock.lock();
+        try {
+            T current = documents.get(id);
+            T next = change.apply(current);
+            if (next == current) {
+                return current;
+            }
+            for (SecondaryIndex<T> index : indexes) {
+                Object duplicate = index.conflict(id, next);
+                if (duplicate != null) {
+                    throw duplicateKey(index.field() + "_1", duplicate);
+                }
+            }
+            if (log != null) {
+                // Logged before it becomes visible, so nothing a reader has seen can be lost to a crash
+                try {
+                    log.append(id, next != null ? codec.encode(next) : null);
+                } catch (IOException e) {
+                    throw new DataAccessResourceFailureException("Cannot write to the storage log of " + collection,
+                            e);
+                }
+                changesSinceSnapshot++;
+            }
+            install(id, current, next);
+            return next;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    DuplicateKeyException duplicateKey(String index, Object key) {
+        return new DuplicateKeyException("E11000 duplicate key error collection: " + collection + " index: " + index
+                + " dup key: " + key);
+    }
+
+    T get(String id) {
+        return id != null ? documents.get(id) : null;
+    }
+
+    boolean contains(String id) {
+        return id != null && documents.containsKey(id);
+    }
+
+    long size() {
+        return documents.size();
+    }
+
+    /**
+     * @return all documents in _id order
+     */
+    Stream<T> scan() {
+        return documents.values().stream();
+    }
+
+    /**
+     * @return documents by _id, for range scans on the primary key
+     */
+    NavigableMap<String, T> byId() {
+        return Collections.unmodifiableNavigableMap(documents);
+    }
+
+    /**
+     * @return documents with the given IDs that still exist, in the IDs' order
+     */
+    Stream<T> lookup(Stream<String> ids) {
+        return ids.map(documents::get).filter(document -> document != null);
+    }
+
+    SecondaryIndex<T> index(String field) {
+        return indexes.stream()
+                .filter(index -> index.field().equals(field))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("No index on " + collection + "." + field));
+    }
+
+    /**
+     * Loads the snapshot and the log written since from the directory and
+     * keeps logging changes there.
+     */
+    void recover(Path directory) throws IOException {
+        writeLock.lock();
+        try {
+            long started = System.nanoTime();
+            snapshotFile = DocumentSnapshot.file(directory, collection);
+            DocumentSnapshot.Loaded snapshot = DocumentSnapshot.read(snapshotFile, this::replay);
+            long firstSegment = snapshot != null ? snapshot.firstSegment() : 0;
+
+            List<Long> segments = DocumentLog.segments(directory, collection).stream()
+                    .filter(segment -> segment >= firstSegment)
+                    .toList();
+            long replayed = 0;
+            for (int i = 0; i < segments.size(); i++) {
+                replayed += DocumentLog.replay(DocumentLog.segmentFile(directory, collection, segments.get(i)),
+                        i == segments.size() - 1, this::replay);
+            }
+
+            log = DocumentLog.open(directory, collection,
+                    segments.isEmpty() ? Math.max(firstSegment, 1) : segments.getLast());
+            // Left behind if the process stopped between writing a snapshot and cleaning up
+            log.deleteBefore(firstSegment);
+            changesSinceSnapshot = replayed;
+
+            logger.info("Loaded {}: {} documents from snapshot, {} log records replayed in {} ms", collection,
+                    snapshot != null ? snapshot.count() : 0, replayed, (System.nanoTime() - started) / 1_000_000);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Forces logged changes to disk.
+     */
+    void sync() throws IOException {
+        DocumentLog current = log;
+        if (current != null) {
+            current.sync();
+        }
+    }
+
+    /**
+     * Writes a snapshot if anything changed since the last one and drops
+     * the log it replaces. Writers are held up only while the log rotates.
+     */
+    void snapshot() throws IOException {
+        snapshotLock.lock();
+        try {
+            long firstSegment;
+            writeLock.lock();
+            try {
+                if (log == null || changesSinceSnapshot == 0) {
+                    return;
+                }
+                firstSegment = log.rotate();
+                changesSinceSnapshot = 0;
+            } finally {
+                writeLock.unlock();
+            }
+            // Changes made while the documents are written go to the new segment and are replayed over the snapshot
+            DocumentSnapshot.write(snapshotFile, documents.entrySet(), codec::encode, firstSegment);
+            log.deleteBefore(firstSegment);
+        } finally {
+            snapshotLock.unlock();
+        }
+    }
+
+    /**
+     * Writes a final snapshot and closes the log.
+     */
+    void close() throws IOException {
+        snapshotLock.lock();
+        try {
+            if (log == null) {
+                return;
+            }
+            snapshot();
+            writeLock.lock();
+            try {
+                log.close();
+                log = null;
+            } finally {
+                writeLock.unlock();
+            }
+        } finally {
+            snapshotLock.unlock();
+        }
+    }
+
+    private void replay(String id, byte[] document) {
+        install(id, documents.get(id), document != null ? codec.decode(document) : null);
+    }
+
+    private void install(String id, T previous, T next) {
+        if (next != null) {
+            documents.put(id, next);
+        } else {
+            documents.remove(id);
+        }
+        for (SecondaryIndex<T> index : indexes) {
+            index.update(id, previous, next);
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package com.github.adaken4.lets_play.repository.inmemory;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Predicate;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Repository;
+
+import com.github.adaken4.lets_play.model.CascadeDeleteJob;
+import com.github.adaken4.lets_play.model.CascadeDeleteJob.Status;
+import com.github.adaken4.lets_play.repository.CascadeDeleteJobRepository;
+
+/**
+ * CascadeDeleteJobRepository on the in-process storage engine (inmemory profile). Each
+ * lease transition is one atomic conditional update, as with findAndModify.
+ */
+@Repository
+@Profile("inmemory")
+public class InMemoryCascadeDeleteJobRepository extends InMemoryMongoRepository<CascadeDeleteJob>
+        implements CascadeDeleteJobRepository {
+
+    private static final DocumentCodec<CascadeDeleteJob> CODEC = new DocumentCodec<>() {
+
+        @Override
+        public void write(CascadeDeleteJob job, DataOutput out) throws IOException {
+            DocumentCodec.writeString(out, job.getUserId());
+            DocumentCodec.writeString(out, job.getStatus() != null ? job.getStatus().name() : null);
+            DocumentCodec.writeLong(out, job.getTotal());
+            out.writeLong(job.getDeleted());
+            DocumentCodec.writeInstant(out, job.getCreatedAt());
+            DocumentCodec.writeInstant(out, job.getStartedAt());
+            DocumentCodec.writeInstant(out, job.getUpdatedAt());
+            DocumentCodec.writeInstant(out, job.getFinishedAt());
+            DocumentCodec.writeString(out, job.getLeaseOwner());
+            DocumentCodec.writeInstant(out, job.getLeaseUntil());
+        }
+
+        @Override
+        public CascadeDeleteJob read(DataInput in) throws IOException {
+            CascadeDeleteJob job = new CascadeDeleteJob();
+            job.setUserId(DocumentCodec.readString(in));
+            String status = DocumentCodec.readString(in);
+            job.setStatus(status != null ? Status.valueOf(status) : null);
+            job.setTotal(DocumentCodec.readLong(in));
+            job.setDeleted(in.readLong());
+            job.setCreatedAt(DocumentCodec.readInstant(in));
+            job.setStartedAt(DocumentCodec.readInstant(in));
+            job.setUpdatedAt(DocumentCodec.readInstant(in));
+            job.setFinishedAt(DocumentCodec.readInstant(in));
+            job.setLeaseOwner(DocumentCodec.readString(in));
+            job.setLeaseUntil(DocumentCodec.readInstant(in));
+            return job;
+        }
+    };
+
+    public InMemoryCascadeDeleteJobRepository(InMemoryStorage storage) {
+        super(storage.open("cascade_delete_jobs", CascadeDeleteJob::getUserId, CODEC, List.of()));
+    }
+
+    @Override
+    protected void assignId(CascadeDeleteJob job, String id) {
+        job.setUserId(id);
+    }
+
+    @Override
+    protected CascadeDeleteJob copy(CascadeDeleteJob job) {
+        CascadeDeleteJob copy = new CascadeDeleteJob();
+        copy.setUserId(job.getUserId());
+        copy.setStatus(job.getStatus());
+        copy.setTotal(job.getTotal());
+        copy.setDeleted(job.getDeleted());
+        copy.setCreatedAt(job.getCreatedAt());
+        copy.setStartedAt(job.getStartedAt());
+        copy.setUpdatedAt(job.getUpdatedAt());
+        copy.setFinishedAt(job.getFinishedAt());
+        copy.setLeaseOwner(job.getLeaseOwner());
+        copy.setLeaseUntil(job.getLeaseUntil());
+        return copy;
+    }
+
+    @Override
+    public List<CascadeDeleteJob> findTop50ByOrderByCreatedAtDesc() {
+        roundTrip();
+        return select(scan(), order(Sort.by(Sort.Direction.DESC, "createdAt")), 0, 50);
+    }
+
+    @Override
+    public void enqueue(String userId, Instant now) {
+        roundTrip();
+        documents.apply(userId, current -> {
+            // A running job for this user already exists and will pick up every product
+            if (current != null && current.getStatus() == Status.RUNNING) {
+                return current;
+            }
+            CascadeDeleteJob job = current != null ? copy(current) : new CascadeDeleteJob();
+            job.setUserId(userId);
+            job.setStatus(Status.PENDING);
+            job.setDeleted(0L);
+            job.setCreatedAt(now);
+            job.setUpdatedAt(now);
+            job.setTotal(null);
+            job.setStartedAt(null);
+            job.setFinishedAt(null);
+            return job;
+        });
+    }
+
+    @Override
+    public Optional<CascadeDeleteJob> claimNext(String worker, Instant now, Duration lease) {
+        roundTrip();
+        Predicate<CascadeDeleteJob> claimable = job -> (job.getStatus() == Status.PENDING
+                || job.getStatus() == Status.RUNNING)
+                && (job.getLeaseUntil() == null || job.getLeaseUntil().isBefore(now));
+        // Oldest first; a candidate claimed meanwhile by another worker fails the condition and is skipped
+        for (CascadeDeleteJob candidate : select(scan().filter(claimable), order(Sort.by("createdAt")), 0,
+                Long.MAX_VALUE)) {
+            CascadeDeleteJob claimed = updateIf(candidate.getUserId(), claimable, job -> {
+                job.setStatus(Status.RUNNING);
+                job.setLeaseOwner(worker);
+                job.setLeaseUntil(now.plus(lease));
+                job.setUpdatedAt(now);
+                return job;
+            });
+            if (claimed != null) {
+                return Optional.of(claimed);
+            }
+        }
+        return Optional.empty();
+    }
+
+    @Override
+    public boolean start(String userId, String worker, long total, Instant now) {
+        roundTrip();
+        return updateIf(userId, leased(worker), job -> {
+            job.setTotal(total);
+            job.setStartedAt(now);
+            job.setUpdatedAt(now);
+            return job;
+        }) != null;
+    }
+
+    @Override
+    public boolean recordProgress(String userId, String worker, long deleted, Instant now, Duration lease) {
+        roundTrip();
+        return updateIf(userId, leased(worker), job -> {
+            job.setDeleted(job.getDeleted() + deleted);
+            job.setLeaseUntil(now.plus(lease));
+            job.setUpdatedAt(now);
+            return job;
+        }) != null;
+    }
+
+    @Override
+    public boolean complete(String userId, String worker, Instant now) {
+        roundTrip();
+        return updateIf(userId, leased(worker), job -> {
+            job.setStatus(Status.DONE);
+            job.setFinishedAt(now);
+            job.setUpdatedAt(now);
+            job.setLeaseOwner(null);
+            job.setLeaseUntil(null);
+            return job;
+        }) != null;
+    }
+
+    private static Predicate<CascadeDeleteJob> leased(String worker) {
+        return job -> job.getStatus() == Status.RUNNING && worker.equals(job.getLeaseOwner());
+    }
+}
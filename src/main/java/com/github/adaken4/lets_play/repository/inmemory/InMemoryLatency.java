@@ -0,0 +1,46 @@
+package com.github.adaken4.lets_play.repository.inmemory;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+/**
+ * Simulated database round trip for the in-memory repositories.
+ *
+ * Every repository call sleeps for the configured latency plus a uniformly
+ * random share of the jitter, so request threads wait on storage as they
+ * would on MongoDB and load tests exercise the thread model, not only the CPU.
+ * Zero (the default) disables the pause.
+ */
+@Component
+@Profile("inmemory")
+public class InMemoryLatency {
+
+    @Value("${app.inmemory.latency}")
+    private Duration latency;
+
+    @Value("${app.inmemory.latency-jitter}")
+    private Duration jitter;
+
+    /**
+     * Blocks the calling thread for one simulated round trip.
+     */
+    void pause() {
+        long nanos = latency.toNanos();
+        if (!jitter.isZero()) {
+            nanos += ThreadLocalRandom.current().nextLong(jitter.toNanos() + 1);
+        }
+        if (nanos <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(Duration.ofNanos(nanos));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted during simulated database latency", e);
+        }
+    }
+}
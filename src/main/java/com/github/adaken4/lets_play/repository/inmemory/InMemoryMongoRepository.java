@@ -0,0 +1,399 @@
+package com.github.adaken4.lets_play.repository.inmemory;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
+
+import org.springframework.beans.DirectFieldAccessor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Example;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.repository.query.FluentQuery;
+
+/**
+ * MongoRepository operations on a collection of the in-process storage
+ * engine (DocumentStore), backing the inmemory profile.
+ *
+ * Documents are kept in _id order, like a scan of the _id index, and are
+ * stored and returned as copies: as with a database, changing a returned
+ * entity has no effect until it is saved. Single-document writes are atomic;
+ * queries scan the collection unless a subclass uses one of its secondary
+ * indexes. Every call pauses once for the simulated round trip
+ * (InMemoryLatency). Query by example is not supported.
+ *
+ * @param <T> entity type, with a String _id
+ */
+abstract class InMemoryMongoRepository<T> implements MongoRepository<T, String> {
+
+    @Autowired
+    private InMemoryLatency latency;
+
+    protected final DocumentStore<T> documents;
+
+    protected InMemoryMongoRepository(DocumentStore<T> documents) {
+        this.documents = documents;
+    }
+
+    protected String idOf(T entity) {
+        return documents.idOf(entity);
+    }
+
+    protected abstract void assignId(T entity, String id);
+
+    /**
+     * Detached copy of an entity, standing in for a serialization round trip.
+     */
+    protected abstract T copy(T entity);
+
+    /**
+     * Writes one document, replacing any with the same _id. Subclasses add
+     * their constraints (unique indexes, optimistic locking).
+     */
+    protected void store(T entity) {
+        T stored = copy(entity);
+        documents.apply(idOf(stored), current -> stored);
+    }
+
+    /**
+     * Writes one new document, failing if the _id is taken.
+     */
+    protected void storeNew(T entity) {
+        T stored = copy(entity);
+        documents.apply(idOf(stored), current -> {
+            if (current != null) {
+                throw duplicateKey("_id_", idOf(stored));
+            }
+            return stored;
+        });
+    }
+
+    /**
+     * Removes one document.
+     *
+     * @return the removed document, or null if there was none
+     */
+    protected T remove(String id) {
+        AtomicReference<T> removed = new AtomicReference<>();
+        documents.apply(id, current -> {
+            removed.set(current);
+            return null;
+        });
+        return removed.get();
+    }
+
+    /**
+     * Atomic conditional update of one document, like findAndModify.
+     * The update receives a copy of the current document and returns the new
+     * one; it runs under the collection's write lock, so it must be quick.
+     *
+     * @return copy of the updated document, or null if none matched
+     */
+    protected T updateIf(String id, Predicate<T> condition, UnaryOperator<T> update) {
+        AtomicReference<T> updated = new AtomicReference<>();
+        documents.apply(id, current -> {
+            if (current == null || !condition.test(current)) {
+                return current;
+            }
+            updated.set(update.apply(copy(current)));
+            return updated.get();
+        });
+        T result = updated.get();
+        return result != null ? copy(result) : null;
+    }
+
+    /**
+     * Atomic conditional delete of one document.
+     *
+     * @return true if a document was deleted
+     */
+    protected boolean removeIf(String id, Predicate<T> condition) {
+        AtomicBoolean removed = new AtomicBoolean();
+        documents.apply(id, current -> {
+            removed.set(current != null && condition.test(current));
+            return removed.get() ? null : current;
+        });
+        return removed.get();
+    }
+
+    /**
+     * One simulated database round trip; called once per repository operation.
+     */
+    protected void roundTrip() {
+        latency.pause();
+    }
+
+    protected DuplicateKeyException duplicateKey(String index, Object key) {
+        return documents.duplicateKey(index, key);
+    }
+
+    @Override
+    public <S extends T> S save(S entity) {
+        roundTrip();
+        store(withId(entity));
+        return entity;
+    }
+
+    @Override
+    public <S extends T> List<S> saveAll(Iterable<S> entities) {
+        roundTrip();
+        List<S> saved = new ArrayList<>();
+        for (S entity : entities) {
+            store(withId(entity));
+            saved.add(entity);
+        }
+        return saved;
+    }
+
+    @Override
+    public <S extends T> S insert(S entity) {
+        roundTrip();
+        storeNew(withId(entity));
+        return entity;
+    }
+
+    @Override
+    public <S extends T> List<S> insert(Iterable<S> entities) {
+        roundTrip();
+        List<S> inserted = new ArrayList<>();
+        for (S entity : entities) {
+            storeNew(withId(entity));
+            inserted.add(entity);
+        }
+        return inserted;
+    }
+
+    @Override
+    public Optional<T> findById(String id) {
+        roundTrip();
+        return Optional.ofNullable(documents.get(id)).map(this::copy);
+    }
+
+    @Override
+    public boolean existsById(String id) {
+        roundTrip();
+        return documents.contains(id);
+    }
+
+    @Override
+    public List<T> findAll() {
+        roundTrip();
+        return scan().map(this::copy).toList();
+    }
+
+    @Override
+    public List<T> findAllById(Iterable<String> ids) {
+        roundTrip();
+        List<T> found = new ArrayList<>();
+        for (String id : ids) {
+            T document = documents.get(id);
+            if (document != null) {
+                found.add(copy(document));
+            }
+        }
+        return found;
+    }
+
+    @Override
+    public long count() {
+        roundTrip();
+        return documents.size();
+    }
+
+    @Override
+    public void deleteById(String id) {
+        roundTrip();
+        remove(id);
+    }
+
+    @Override
+    public void delete(T entity) {
+        roundTrip();
+        remove(idOf(entity));
+    }
+
+    @Override
+    public void deleteAllById(Iterable<? extends String> ids) {
+        roundTrip();
+        ids.forEach(this::remove);
+    }
+
+    @Override
+    public void deleteAll(Iterable<? extends T> entities) {
+        roundTrip();
+        entities.forEach(entity -> remove(idOf(entity)));
+    }
+
+    @Override
+    public void deleteAll() {
+        roundTrip();
+        documents.byId().keySet().forEach(this::remove);
+    }
+
+    @Override
+    public List<T> findAll(Sort sort) {
+        roundTrip();
+        return select(scan(), order(sort), 0, Long.MAX_VALUE);
+    }
+
+    @Override
+    public Page<T> findAll(Pageable pageable) {
+        roundTrip();
+        if (pageable.isUnpaged()) {
+            return new PageImpl<>(select(scan(), order(pageable.getSort()), 0, Long.MAX_VALUE));
+        }
+        return new PageImpl<>(select(scan(), order(pageable.getSort()), pageable.getOffset(),
+                pageable.getPageSize()), pageable, documents.size());
+    }
+
+    @Override
+    public <S extends T> Optional<S> findOne(Example<S> example) {
+        throw byExample();
+    }
+
+    @Override
+    public <S extends T> List<S> findAll(Example<S> example) {
+        throw byExample();
+    }
+
+    @Override
+    public <S extends T> List<S> findAll(Example<S> example, Sort sort) {
+        throw byExample();
+    }
+
+    @Override
+    public <S extends T> Page<S> findAll(Example<S> example, Pageable pageable) {
+        throw byExample();
+    }
+
+    @Override
+    public <S extends T> long count(Example<S> example) {
+        throw byExample();
+    }
+
+    @Override
+    public <S extends T> boolean exists(Example<S> example) {
+        throw byExample();
+    }
+
+    @Override
+    public <S extends T, R> R findBy(Example<S> example,
+            Function<FluentQuery.FetchableFluentQuery<S>, R> queryFunction) {
+        throw byExample();
+    }
+
+    /**
+     * Stored documents in _id order, not copied: callers copy what they return.
+     */
+    protected Stream<T> scan() {
+        return documents.scan();
+    }
+
+    /**
+     * Copies of the rows in [offset, offset + limit) of the given order.
+     */
+    protected List<T> select(Stream<T> rows, Comparator<T> order, long offset, long limit) {
+        return rows.sorted(order)
+                .skip(offset)
+                .limit(limit)
+                .map(this::copy)
+                .toList();
+    }
+
+    /**
+     * Keyset page: rows strictly after (lastValue, lastId) in sortField/_id
+     * order, the same rows as KeysetQueries.after on MongoDB.
+     */
+    protected List<T> after(Stream<T> rows, String sortField, Sort.Direction direction, Object lastValue,
+            String lastId, int limit) {
+        Sort sort = "id".equals(sortField)
+                ? Sort.by(direction, "id")
+                : Sort.by(direction, sortField).and(Sort.by(direction, "id"));
+        return select(rows.filter(beyond(sortField, direction, lastValue, lastId)), order(sort), 0, limit);
+    }
+
+    /**
+     * Keyset condition: row is strictly after (lastValue, lastId) in
+     * sortField/_id order; always true without a lastId.
+     */
+    protected Predicate<T> beyond(String sortField, Sort.Direction direction, Object lastValue, String lastId) {
+        if (lastId == null) {
+            return row -> true;
+        }
+        boolean byId = "id".equals(sortField);
+        int sign = direction.isAscending() ? 1 : -1;
+        return row -> {
+            int byValue = byId ? 0 : sign * compareValues(property(row, sortField), lastValue);
+            return byValue > 0 || (byValue == 0 && sign * idOf(row).compareTo(lastId) > 0);
+        };
+    }
+
+    /**
+     * Comparator for a Sort on entity properties, _id last to make it total.
+     */
+    protected Comparator<T> order(Sort sort) {
+        Comparator<T> order = (a, b) -> 0;
+        for (Sort.Order by : sort) {
+            String name = by.getProperty();
+            Comparator<T> property = (a, b) -> compareValues(property(a, name), property(b, name));
+            order = order.thenComparing(by.isAscending() ? property : property.reversed());
+        }
+        return order.thenComparing(this::idOf);
+    }
+
+    /**
+     * Property value by field name; null for unknown fields, which MongoDB
+     * treats as missing.
+     */
+    protected Object property(T entity, String name) {
+        if ("id".equals(name)) {
+            return idOf(entity);
+        }
+        DirectFieldAccessor accessor = new DirectFieldAccessor(entity);
+        return accessor.isReadableProperty(name) ? accessor.getPropertyValue(name) : null;
+    }
+
+    /**
+     * BSON-like comparison: null (missing) first, numbers by value whatever
+     * their type, other values by their natural order.
+     */
+    @SuppressWarnings("unchecked")
+    static int compareValues(Object a, Object b) {
+        if (a == null || b == null) {
+            return a == null ? (b == null ? 0 : -1) : 1;
+        }
+        if (a instanceof Number x && b instanceof Number y) {
+            return Double.compare(x.doubleValue(), y.doubleValue());
+        }
+        if (a instanceof Comparable && a.getClass() == b.getClass()) {
+            return ((Comparable<Object>) a).compareTo(b);
+        }
+        return a.toString().compareTo(b.toString());
+    }
+
+    /**
+     * Assigns a generated _id to an entity that has none, as MongoDB does on insert.
+     */
+    protected <S extends T> S withId(S entity) {
+        if (idOf(entity) == null) {
+            assignId(entity, UUID.randomUUID().toString());
+        }
+        return entity;
+    }
+
+    private static UnsupportedOperationException byExample() {
+        return new UnsupportedOperationException("Query by example is not supported in memory");
+    }
+}
@@ -0,0 +1,410 @@
+package com.github.adaken4.lets_play.repository.inmemory;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Repository;
+
+import com.github.adaken4.lets_play.dto.ProductSummary;
+import com.github.adaken4.lets_play.model.Product;
+import com.github.adaken4.lets_play.repository.ProductFilter;
+import com.github.adaken4.lets_play.repository.ProductRepository;
+
+/**
+ * ProductRepository on the in-process storage engine (inmemory profile), with
+ * the same semantics as the MongoDB queries: @Version checks on save, atomic
+ * conditional update/delete, keyset pages and unordered bulk inserts.
+ *
+ * Owner queries read the userId index. Price-ordered and price-bounded
+ * queries walk the price index in order and stop once the page is full,
+ * like an index scan on {price: 1, _id: 1}; owner-filtered searches prefer
+ * the userId index, as the owner is the more selective condition.
+ *
+ * Text search is a simplified $text: case-insensitive whole-word matches of
+ * any query term, name matches weighted like the text index (3:1), without
+ * stemming, phrases or negation.
+ */
+@Repository
+@Profile("inmemory")
+public class InMemoryProductRepository extends InMemoryMongoRepository<Product> implements ProductRepository {
+
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    // As @TextIndexed(weight = 3) on Product.name
+    private static final int NAME_WEIGHT = 3;
+
+    private record Scored(Product product, int score) {
+    }
+
+    private static final DocumentCodec<Product> CODEC = new DocumentCodec<>() {
+
+        @Override
+        public void write(Product product, DataOutput out) throws IOException {
+            DocumentCodec.writeString(out, product.getId());
+            DocumentCodec.writeString(out, product.getName());
+            DocumentCodec.writeString(out, product.getDescription());
+            DocumentCodec.writeDouble(out, product.getPrice());
+            DocumentCodec.writeString(out, product.getUserId());
+            DocumentCodec.writeLong(out, product.getVersion());
+        }
+
+        @Override
+        public Product read(DataInput in) throws IOException {
+            Product product = new Product();
+            product.setId(DocumentCodec.readString(in));
+            product.setName(DocumentCodec.readString(in));
+            product.setDescription(DocumentCodec.readString(in));
+            product.setPrice(DocumentCodec.readDouble(in));
+            product.setUserId(DocumentCodec.readString(in));
+            product.setVersion(DocumentCodec.readLong(in));
+            return product;
+        }
+    };
+
+    private final SecondaryIndex<Product> owners;
+    private final SecondaryIndex<Product> prices;
+
+    public InMemoryProductRepository(InMemoryStorage storage) {
+        super(storage.open("products", Product::getId, CODEC, List.of(
+                SecondaryIndex.on("userId", Product::getUserId),
+                SecondaryIndex.on("price", Product::getPrice))));
+        this.owners = documents.index("userId");
+        this.prices = documents.index("price");
+    }
+
+    @Override
+    protected void assignId(Product product, String id) {
+        product.setId(id);
+    }
+
+    @Override
+    protected Product copy(Product product) {
+        Product copy = new Product();
+        copy.setId(product.getId());
+        copy.setName(product.getName());
+        copy.setDescription(product.getDescription());
+        copy.setPrice(product.getPrice());
+        copy.setUserId(product.getUserId());
+        copy.setVersion(product.getVersion());
+        return copy;
+    }
+
+    // @Version: a new product is inserted at version 0, an update must carry the stored version
+    @Override
+    protected void store(Product product) {
+        Long version = product.getVersion();
+        Product stored = copy(product);
+        stored.setVersion(version == null ? 0L : version + 1);
+        if (version == null) {
+            super.storeNew(stored);
+        } else if (updateIf(product.getId(), current -> version.equals(current.getVersion()),
+                current -> stored) == null) {
+            throw new OptimisticLockingFailureException("Cannot save entity " + product.getId()
+                    + " with version " + version + " to collection products; has it been modified meanwhile?");
+        }
+        product.setVersion(stored.getVersion());
+    }
+
+    @Override
+    protected void storeNew(Product product) {
+        if (product.getVersion() == null) {
+            product.setVersion(0L);
+        }
+        super.storeNew(product);
+    }
+
+    @Override
+    public Slice<Product> findAllBy(Pageable pageable) {
+        roundTrip();
+        if (pageable.isUnpaged()) {
+            return new SliceImpl<>(select(scan(), order(pageable.getSort()), 0, Long.MAX_VALUE));
+        }
+        int size = pageable.getPageSize();
+        List<Product> rows = select(scan(), order(pageable.getSort()), pageable.getOffset(), size + 1L);
+        boolean hasNext = rows.size() > size;
+        return new SliceImpl<>(hasNext ? rows.subList(0, size) : rows, pageable, hasNext);
+    }
+
+    @Override
+    public List<ProductSummary> findByUserIdOrderByIdAsc(String userId, Limit limit) {
+        roundTrip();
+        return summaries(ownedBy(userId), userId, limit);
+    }
+
+    @Override
+    public List<ProductSummary> findByUserIdAndIdGreaterThanOrderByIdAsc(String userId, String lastId,
+            Limit limit) {
+        roundTrip();
+        return summaries(documents.lookup(owners.ids(userId).tailSet(lastId, false).stream()), userId, limit);
+    }
+
+    @Override
+    public long countByUserId(String userId) {
+        roundTrip();
+        return ownedBy(userId).filter(owned(userId)).count();
+    }
+
+    @Override
+    public List<Product> findAfter(String sortField, Sort.Direction direction, Object lastValue, String lastId,
+            int limit) {
+        roundTrip();
+        Stream<Product> rows;
+        if ("id".equals(sortField)) {
+            rows = byId(direction, lastId);
+        } else if ("price".equals(sortField)) {
+            rows = byPrice(new ProductFilter(null, null, null, null), direction, lastValue, lastId);
+        } else {
+            return after(scan(), sortField, direction, lastValue, lastId, limit);
+        }
+        return rows.filter(beyond(sortField, direction, lastValue, lastId))
+                .limit(limit)
+                .map(this::copy)
+                .toList();
+    }
+
+    @Override
+    public long estimatedCount() {
+        roundTrip();
+        return documents.size();
+    }
+
+    @Override
+    public long initializeMissingVersions() {
+        roundTrip();
+        return documents.byId().keySet().stream()
+                .filter(id -> updateIf(id, product -> product.getVersion() == null, product -> {
+                    product.setVersion(0L);
+                    return product;
+                }) != null)
+                .count();
+    }
+
+    @Override
+    public Optional<Product> updateIfPermitted(String productId, String ownerId, Long expectedVersion,
+            Product changes) {
+        roundTrip();
+        return Optional.ofNullable(updateIf(productId, permitted(ownerId, expectedVersion), product -> {
+            if (changes.getName() != null) {
+                product.setName(changes.getName());
+            }
+            if (changes.getDescription() != null) {
+                product.setDescription(changes.getDescription());
+            }
+            if (changes.getPrice() != null) {
+                product.setPrice(changes.getPrice());
+            }
+            // $inc on a missing field sets it to the increment
+            product.setVersion(product.getVersion() == null ? 1L : product.getVersion() + 1);
+            return product;
+        }));
+    }
+
+    @Override
+    public boolean deleteIfPermitted(String productId, String ownerId, Long expectedVersion) {
+        roundTrip();
+        return removeIf(productId, permitted(ownerId, expectedVersion));
+    }
+
+    @Override
+    public Map<Integer, String> bulkInsert(List<Product> products) {
+        roundTrip();
+        // Unordered: a duplicate is reported by position and the rest are still inserted
+        Map<Integer, String> errors = new HashMap<>();
+        for (int i = 0; i < products.size(); i++) {
+            try {
+                storeNew(withId(products.get(i)));
+            } catch (DuplicateKeyException e) {
+                errors.put(i, e.getMessage());
+            }
+        }
+        return errors;
+    }
+
+    @Override
+    public Stream<Product> streamFiltered(String ownerId, Double minPrice, Double maxPrice, int batchSize) {
+        roundTrip();
+        ProductFilter filter = new ProductFilter(null, ownerId, minPrice, maxPrice);
+        return candidates(filter).filter(matches(filter)).map(this::copy);
+    }
+
+    @Override
+    public List<Product> searchByRelevance(ProductFilter filter, long offset, int limit) {
+        roundTrip();
+        Set<String> terms = words(filter.text());
+        ProductFilter bounds = new ProductFilter(null, filter.ownerId(), filter.minPrice(), filter.maxPrice());
+        return candidates(bounds)
+                .filter(matches(bounds))
+                .map(product -> new Scored(product, score(product, terms)))
+                .filter(scored -> scored.score() > 0)
+                .sorted(Comparator.comparingInt(Scored::score).reversed()
+                        .thenComparing(scored -> scored.product().getId()))
+                .skip(offset)
+                .limit(limit)
+                .map(scored -> copy(scored.product()))
+                .toList();
+    }
+
+    @Override
+    public List<Product> searchByPrice(ProductFilter filter, Sort.Direction direction, long offset, int limit) {
+        roundTrip();
+        if (filter.ownerId() != null) {
+            return select(ownedBy(filter.ownerId()).filter(matches(filter)),
+                    order(Sort.by(direction, "price").and(Sort.by(direction, "id"))), offset, limit);
+        }
+        return byPrice(filter, direction, null, null)
+                .filter(matches(filter))
+                .skip(offset)
+                .limit(limit)
+                .map(this::copy)
+                .toList();
+    }
+
+    @Override
+    public List<Product> searchAfter(ProductFilter filter, Sort.Direction direction, Object lastPrice,
+            String lastId, int limit) {
+        roundTrip();
+        if (filter.ownerId() != null) {
+            return after(ownedBy(filter.ownerId()).filter(matches(filter)), "price", direction, lastPrice, lastId,
+                    limit);
+        }
+        return byPrice(filter, direction, lastPrice, lastId)
+                .filter(matches(filter))
+                .filter(beyond("price", direction, lastPrice, lastId))
+                .limit(limit)
+                .map(this::copy)
+                .toList();
+    }
+
+    @Override
+    public DeletedBatch deleteOwnedBatch(String ownerId, int batchSize) {
+        roundTrip();
+        List<String> ids = owners.ids(ownerId).stream().limit(batchSize).toList();
+        long deleted = 0;
+        for (String id : ids) {
+            if (removeIf(id, owned(ownerId))) {
+                deleted++;
+            }
+        }
+        return new DeletedBatch(ids, deleted);
+    }
+
+    /**
+     * Products of one owner, in _id order, from the userId index. Callers
+     * check the owner again: a product being reassigned can still be listed.
+     */
+    private Stream<Product> ownedBy(String userId) {
+        return documents.lookup(owners.ids(userId).stream());
+    }
+
+    /**
+     * Products in _id order after lastId, from the primary key.
+     */
+    private Stream<Product> byId(Sort.Direction direction, String lastId) {
+        NavigableMap<String, Product> rows = documents.byId();
+        if (lastId != null) {
+            rows = direction.isAscending() ? rows.tailMap(lastId, false) : rows.headMap(lastId, false);
+        }
+        return (direction.isAscending() ? rows : rows.descendingMap()).values().stream();
+    }
+
+    /**
+     * Products within the filter's price bounds in price/_id order, from the
+     * price index. A keyset page starts at the last row's price rather than
+     * the lower bound; callers still apply the filter and the keyset.
+     */
+    private Stream<Product> byPrice(ProductFilter filter, Sort.Direction direction, Object lastPrice,
+            String lastId) {
+        Object from = filter.minPrice();
+        Object to = filter.maxPrice();
+        if (lastId != null && lastPrice instanceof Number) {
+            if (direction.isAscending() && (from == null || compareValues(lastPrice, from) > 0)) {
+                from = lastPrice;
+            } else if (direction.isDescending() && (to == null || compareValues(lastPrice, to) < 0)) {
+                to = lastPrice;
+            }
+        }
+        return documents.lookup(prices.range(from, to, direction.isDescending()));
+    }
+
+    /**
+     * Products that may match the filter's owner and price bounds, through
+     * the most selective index the filter allows; unordered.
+     */
+    private Stream<Product> candidates(ProductFilter filter) {
+        if (filter.ownerId() != null) {
+            return ownedBy(filter.ownerId());
+        }
+        if (filter.minPrice() != null || filter.maxPrice() != null) {
+            return byPrice(filter, Sort.Direction.ASC, null, null);
+        }
+        return scan();
+    }
+
+    private static List<ProductSummary> summaries(Stream<Product> rows, String userId, Limit limit) {
+        return rows.filter(owned(userId))
+                .limit(limit.isLimited() ? limit.max() : Long.MAX_VALUE)
+                .map(product -> new ProductSummary(product.getId(), product.getName(), product.getPrice()))
+                .toList();
+    }
+
+    private static Predicate<Product> owned(String userId) {
+        return product -> userId.equals(product.getUserId());
+    }
+
+    // Same predicate as the MongoDB filter: ID, then owner and version when given
+    private static Predicate<Product> permitted(String ownerId, Long expectedVersion) {
+        return product -> (ownerId == null || ownerId.equals(product.getUserId()))
+                && (expectedVersion == null || expectedVersion.equals(product.getVersion()));
+    }
+
+    private static Predicate<Product> matches(ProductFilter filter) {
+        Set<String> terms = filter.hasText() ? words(filter.text()) : Set.of();
+        return product -> (filter.ownerId() == null || filter.ownerId().equals(product.getUserId()))
+                && (filter.minPrice() == null
+                        || (product.getPrice() != null && product.getPrice() >= filter.minPrice()))
+                && (filter.maxPrice() == null
+                        || (product.getPrice() != null && product.getPrice() <= filter.maxPrice()))
+                && (terms.isEmpty() || score(product, terms) > 0);
+    }
+
+    private static int score(Product product, Set<String> terms) {
+        Set<String> name = words(product.getName());
+        Set<String> description = words(product.getDescription());
+        int score = 0;
+        for (String term : terms) {
+            score += (name.contains(term) ? NAME_WEIGHT : 0) + (description.contains(term) ? 1 : 0);
+        }
+        return score;
+    }
+
+    private static Set<String> words(String text) {
+        if (text == null || text.isBlank()) {
+            return Set.of();
+        }
+        return Arrays.stream(SEPARATORS.split(text.toLowerCase(Locale.ROOT)))
+                .filter(word -> !word.isEmpty())
+                .collect(Collectors.toSet());
+    }
+}
@@ -0,0 +1,133 @@
+package com.github.adaken4.lets_play.repository.inmemory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * In-process storage engine behind the inmemory profile's repositories: one
+ * DocumentStore per collection, kept in memory with its secondary indexes.
+ *
+ * Without app.inmemory.data-dir the data lives as long as the process (load
+ * tests). With it, every change is appended to the collection's log before
+ * it is applied, the log is forced to disk every sync interval, and a
+ * snapshot is written every snapshot interval and on shutdown, after which
+ * the log it covers is deleted. Startup maps the snapshot and replays only
+ * the log written since, so restart time follows the size of the data and
+ * the snapshot interval rather than the whole history of changes.
+ *
+ * Syncs and snapshots run on the engine's own two threads rather than
+ * Spring's scheduler. That scheduler has a single thread in platform mode,
+ * and cascade deletes hold it for as long as jobs remain, which would
+ * otherwise leave the log unsynced for minutes. With two threads, a long
+ * snapshot does not hold up syncs either.
+ */
+@Component
+@Profile("inmemory")
+public class InMemoryStorage {
+
+    private static final Logger logger = LoggerFactory.getLogger(InMemoryStorage.class);
+
+    @Value("${app.inmemory.data-dir}")
+    private String dataDir;
+    @Value("${app.inmemory.sync-interval}")
+    private Duration syncInterval;
+    @Value("${app.inmemory.snapshot-interval}")
+    private Duration snapshotInterval;
+
+    private final List<DocumentStore<?>> stores = new CopyOnWriteArrayList<>();
+
+    private ScheduledExecutorService scheduler;
+
+    @PostConstruct
+    void start() {
+        if (dataDir.isBlank()) {
+            return;
+        }
+        scheduler = Executors.newScheduledThreadPool(2,
+                Thread.ofPlatform().name("inmemory-storage-", 0).daemon().factory());
+        scheduler.scheduleWithFixedDelay(this::sync, syncInterval.toNanos(), syncInterval.toNanos(),
+                TimeUnit.NANOSECONDS);
+        scheduler.scheduleWithFixedDelay(this::snapshot, snapshotInterval.toNanos(), snapshotInterval.toNanos(),
+                TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Opens a collection, recovering its data first if storage is durable.
+     */
+    <T> DocumentStore<T> open(String collection, Function<T, String> idOf, DocumentCodec<T> codec,
+            List<SecondaryIndex<T>> indexes) {
+        DocumentStore<T> store = new DocumentStore<>(collection, idOf, codec, indexes);
+        if (!dataDir.isBlank()) {
+            try {
+                Path directory = Files.createDirectories(Path.of(dataDir));
+                store.recover(directory);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot open " + collection + " in " + dataDir, e);
+            }
+        }
+        stores.add(store);
+        return store;
+    }
+
+    // Catches everything: an exception would cancel the periodic task
+    private void sync() {
+        for (DocumentStore<?> store : stores) {
+            try {
+                store.sync();
+            } catch (IOException | RuntimeException e) {
+                logger.error("Failed to sync the storage log of {}", store.collection(), e);
+            }
+        }
+    }
+
+    private void snapshot() {
+        for (DocumentStore<?> store : stores) {
+            try {
+                store.snapshot();
+            } catch (IOException | RuntimeException e) {
+                // The log is kept until a snapshot succeeds, so nothing is lost
+                logger.error("Failed to snapshot {}", store.collection(), e);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        if (scheduler != null) {
+            // Not shutdownNow: interrupting a thread in file I/O closes the channel
+            scheduler.shutdown();
+            try {
+                if (!scheduler.awaitTermination(1, TimeUnit.MINUTES)) {
+                    logger.warn("Storage sync or snapshot still running at shutdown");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        for (DocumentStore<?> store : stores) {
+            try {
+                store.close();
+            } catch (IOException e) {
+                logger.error("Failed to close {}", store.collection(), e);
+            }
+        }
+    }
+}
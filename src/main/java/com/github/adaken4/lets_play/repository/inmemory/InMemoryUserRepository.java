@@ -0,0 +1,108 @@
+package com.github.adaken4.lets_play.repository.inmemory;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Repository;
+
+import com.github.adaken4.lets_play.model.User;
+import com.github.adaken4.lets_play.repository.UserRepository;
+
+/**
+ * UserRepository on the in-process storage engine (inmemory profile), with
+ * the unique email index of the MongoDB collection: a save that would
+ * duplicate another user's email fails with DuplicateKeyException.
+ */
+@Repository
+@Profile("inmemory")
+public class InMemoryUserRepository extends InMemoryMongoRepository<User> implements UserRepository {
+
+    private static final DocumentCodec<User> CODEC = new DocumentCodec<>() {
+
+        @Override
+        public void write(User user, DataOutput out) throws IOException {
+            DocumentCodec.writeString(out, user.getId());
+            DocumentCodec.writeString(out, user.getName());
+            DocumentCodec.writeString(out, user.getEmail());
+            DocumentCodec.writeString(out, user.getPassword());
+            DocumentCodec.writeString(out, user.getRole());
+            out.writeLong(user.getTokenVersion());
+        }
+
+        @Override
+        public User read(DataInput in) throws IOException {
+            return new User(DocumentCodec.readString(in), DocumentCodec.readString(in),
+                    DocumentCodec.readString(in), DocumentCodec.readString(in), DocumentCodec.readString(in),
+                    in.readLong());
+        }
+    };
+
+    private final SecondaryIndex<User> emails;
+
+    public InMemoryUserRepository(InMemoryStorage storage) {
+        super(storage.open("users", User::getId, CODEC, List.of(SecondaryIndex.unique("email", User::getEmail))));
+        this.emails = documents.index("email");
+    }
+
+    @Override
+    protected void assignId(User user, String id) {
+        user.setId(id);
+    }
+
+    @Override
+    protected User copy(User user) {
+        return new User(user.getId(), user.getName(), user.getEmail(), user.getPassword(), user.getRole(),
+                user.getTokenVersion());
+    }
+
+    @Override
+    public Optional<User> findByEmail(String email) {
+        roundTrip();
+        return withEmail(email).findFirst().map(this::copy);
+    }
+
+    @Override
+    public Boolean existsByEmail(String email) {
+        roundTrip();
+        return withEmail(email).findAny().isPresent();
+    }
+
+    @Override
+    public Optional<User> findTokenVersionById(String id) {
+        roundTrip();
+        // Projection: ID and token version only, like the MongoDB query
+        return Optional.ofNullable(documents.get(id)).map(stored -> {
+            User user = new User();
+            user.setId(stored.getId());
+            user.setTokenVersion(stored.getTokenVersion());
+            return user;
+        });
+    }
+
+    @Override
+    public long updatePasswordById(String id, String password) {
+        roundTrip();
+        return updateIf(id, user -> true, user -> {
+            user.setPassword(password);
+            return user;
+        }) != null ? 1 : 0;
+    }
+
+    @Override
+    public List<User> findAfter(String sortField, Sort.Direction direction, Object lastValue, String lastId,
+            int limit) {
+        roundTrip();
+        return after(scan(), sortField, direction, lastValue, lastId, limit);
+    }
+
+    private Stream<User> withEmail(String email) {
+        return documents.lookup(emails.ids(email).stream())
+                .filter(user -> email.equals(user.getEmail()));
+    }
+}
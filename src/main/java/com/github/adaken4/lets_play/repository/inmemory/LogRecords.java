@@ -0,0 +1,122 @@
+package com.github.adaken4.lets_play.repository.inmemory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32C;
+
+/**
+ * Record format shared by the storage log and snapshots: the new state of
+ * one document, or its deletion.
+ *
+ *   int length | int crc32c | byte op | int id length | id (UTF-8) | document
+ *
+ * length and the checksum cover everything after the crc. Records are read
+ * back through read-only memory mappings, one window at a time, so loading
+ * a file costs no read system call per record.
+ */
+final class LogRecords {
+
+    private static final byte PUT = 1;
+    private static final byte DELETE = 2;
+
+    // length + crc
+    private static final int HEADER = 8;
+    // op + id length
+    private static final int MIN_LENGTH = 5;
+
+    private static final long WINDOW = 64L << 20;
+
+    /**
+     * Receives records in file order.
+     */
+    @FunctionalInterface
+    interface Consumer {
+
+        /**
+         * @param document encoded document, null for a deletion
+         */
+        void accept(String id, byte[] document);
+    }
+
+    private LogRecords() {
+    }
+
+    /**
+     * @param document encoded document, null for a deletion
+     * @return the framed record, ready to write
+     */
+    static ByteBuffer encode(String id, byte[] document) {
+        byte[] idBytes = id.getBytes(StandardCharsets.UTF_8);
+        int length = MIN_LENGTH + idBytes.length + (document != null ? document.length : 0);
+        ByteBuffer record = ByteBuffer.allocate(HEADER + length);
+        record.position(HEADER);
+        record.put(document != null ? PUT : DELETE).putInt(idBytes.length).put(idBytes);
+        if (document != null) {
+            record.put(document);
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(record.array(), HEADER, length);
+        record.putInt(0, length).putInt(4, (int) crc.getValue());
+        return record.flip();
+    }
+
+    /**
+     * Reads the records between two file positions, stopping early at the
+     * first incomplete or corrupt one.
+     *
+     * @return position after the last valid record (to if all were valid)
+     */
+    static long read(FileChannel channel, long from, long to, Consumer consumer) throws IOException {
+        long position = from;
+        while (to - position >= HEADER) {
+            long available = to - position;
+            MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position,
+                    Math.min(available, WINDOW));
+            // A record larger than the window gets a window of its own
+            long first = HEADER + (long) window.getInt(0);
+            if (first > window.capacity() && first <= available) {
+                window = channel.map(FileChannel.MapMode.READ_ONLY, position, first);
+            }
+            int consumed = readWindow(window, consumer);
+            if (consumed == 0) {
+                break;
+            }
+            position += consumed;
+        }
+        return position;
+    }
+
+    /**
+     * @return bytes of the complete, valid records at the start of the window
+     */
+    private static int readWindow(ByteBuffer window, Consumer consumer) {
+        CRC32C crc = new CRC32C();
+        while (window.remaining() >= HEADER) {
+            int start = window.position();
+            int length = window.getInt(start);
+            if (length < MIN_LENGTH || length > window.remaining() - HEADER) {
+                break; // corrupt, or continues in the next window
+            }
+            crc.reset();
+            crc.update(window.slice(start + HEADER, length));
+            if ((int) crc.getValue() != window.getInt(start + 4)) {
+                break;
+            }
+
+            window.position(start + HEADER);
+            byte op = window.get();
+            byte[] id = new byte[window.getInt()];
+            window.get(id);
+            byte[] document = null;
+            if (op == PUT) {
+                document = new byte[start + HEADER + length - window.position()];
+                window.get(document);
+            }
+            consumer.accept(new String(id, StandardCharsets.UTF_8), document);
+        }
+        return window.position();
+    }
+}
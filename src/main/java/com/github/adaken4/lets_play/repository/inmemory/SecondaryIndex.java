@@ -0,0 +1,138 @@
+package com.github.adaken4.lets_play.repository.inmemory;
+
+import java.util.Collections;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Secondary index on one document field: field value, then _id, like a
+ * MongoDB {field: 1, _id: 1} index. As there, documents without the field
+ * are indexed under null, which sorts before every value.
+ *
+ * Changed only under the owning DocumentStore's write lock; reads are
+ * lock-free. While a document's field changes, a reader can see it under
+ * the old value, the new one, or briefly neither, so callers check the field
+ * again on the document they read.
+ *
+ * @param <T> entity type
+ */
+final class SecondaryIndex<T> {
+
+    private final String field;
+    private final Function<T, ?> key;
+    private final boolean unique;
+
+    // Stands in for null, which skip list keys cannot be
+    private static final Object MISSING = new Object();
+
+    private final ConcurrentSkipListMap<Object, ConcurrentSkipListSet<String>> entries =
+            new ConcurrentSkipListMap<>(SecondaryIndex::compareKeys);
+
+    private SecondaryIndex(String field, Function<T, ?> key, boolean unique) {
+        this.field = field;
+        this.key = key;
+        this.unique = unique;
+    }
+
+    static <T> SecondaryIndex<T> on(String field, Function<T, ?> key) {
+        return new SecondaryIndex<>(field, key, false);
+    }
+
+    /**
+     * Index whose values identify at most one document; DocumentStore
+     * rejects a write that would break that.
+     */
+    static <T> SecondaryIndex<T> unique(String field, Function<T, ?> key) {
+        return new SecondaryIndex<>(field, key, true);
+    }
+
+    String field() {
+        return field;
+    }
+
+    /**
+     * @return the value that document would duplicate, or null if the write
+     *         keeps the index unique
+     */
+    Object conflict(String id, T document) {
+        if (!unique || document == null) {
+            return null;
+        }
+        Object value = keyOf(document);
+        NavigableSet<String> ids = entries.get(value);
+        if (ids == null || ids.stream().allMatch(other -> other.equals(id))) {
+            return null;
+        }
+        return value != MISSING ? value : "null";
+    }
+
+    /**
+     * Moves the document's entry from its previous to its current value;
+     * either may be null (insert, delete).
+     */
+    void update(String id, T previous, T current) {
+        Object before = previous != null ? keyOf(previous) : null;
+        Object after = current != null ? keyOf(current) : null;
+        if (before != null && after != null && compareKeys(before, after) == 0) {
+            return;
+        }
+        if (before != null) {
+            NavigableSet<String> ids = entries.get(before);
+            if (ids != null) {
+                ids.remove(id);
+                if (ids.isEmpty()) {
+                    entries.remove(before);
+                }
+            }
+        }
+        if (after != null) {
+            entries.computeIfAbsent(after, k -> new ConcurrentSkipListSet<>()).add(id);
+        }
+    }
+
+    /**
+     * @return IDs of the documents with the value, in _id order
+     */
+    NavigableSet<String> ids(Object value) {
+        NavigableSet<String> ids = entries.get(value != null ? value : MISSING);
+        return ids != null ? Collections.unmodifiableNavigableSet(ids) : Collections.emptyNavigableSet();
+    }
+
+    /**
+     * IDs of the documents with a value in [from, to], in value/_id order,
+     * both descending if requested. A null bound is open; documents without
+     * the value come first, so only a null from includes them.
+     */
+    Stream<String> range(Object from, Object to, boolean descending) {
+        NavigableMap<Object, ConcurrentSkipListSet<String>> range = entries;
+        if (from != null && to != null) {
+            if (InMemoryMongoRepository.compareValues(from, to) > 0) {
+                return Stream.empty();
+            }
+            range = entries.subMap(from, true, to, true);
+        } else if (from != null) {
+            range = entries.tailMap(from, true);
+        } else if (to != null) {
+            range = entries.headMap(to, true);
+        }
+        return descending
+                ? range.descendingMap().values().stream().flatMap(ids -> ids.descendingSet().stream())
+                : range.values().stream().flatMap(NavigableSet::stream);
+    }
+
+    private Object keyOf(T document) {
+        Object value = key.apply(document);
+        return value != null ? value : MISSING;
+    }
+
+    private static int compareKeys(Object a, Object b) {
+        if (a == MISSING || b == MISSING) {
+            return a == MISSING ? (b == MISSING ? 0 : -1) : 1;
+        }
+        return InMemoryMongoRepository.compareValues(a, b);
+    }
+}
@@ -1,21 +1,31 @@
 package com.github.adaken4.lets_play.security;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
 import org.springframework.web.filter.OncePerRequestFilter;
 
+import com.github.adaken4.lets_play.config.RequestTiming;
+import com.github.adaken4.lets_play.service.CustomUserDetailsService;
+
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import jakarta.annotation.PostConstruct;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.http.HttpServletResponse;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.ServletException;
 
 import java.io.IOException;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -30,10 +40,43 @@ public class AuthTokenFilter extends OncePerRequestFilter {
     @Autowired
     private JwtUtils jwtUtils;
     @Autowired
-    private UserDetailsService userDetailsService;
+    private CustomUserDetailsService userDetailsService;
+    @Autowired
+    private PrincipalCache principalCache;
+    @Autowired
+    private TokenVersionCache tokenVersionCache;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // Opt-in: authenticate from token claims without loading the user
+    @Value("${app.jwt.stateless}")
+    private boolean statelessMode;
 
     private static final Logger logger = LoggerFactory.getLogger(AuthTokenFilter.class);
 
+    // Looked up once: recording on a held Timer is a few increments, no registry lookup per request
+    private Timer validTokenTimer;
+    private Timer invalidTokenTimer;
+    private Timer principalTimer;
+
+    @PostConstruct
+    void registerMetrics() {
+        // Includes hits of the verified-token cache, which is why most requests are fast
+        validTokenTimer = verifyTimer("valid");
+        invalidTokenTimer = verifyTimer("invalid");
+        principalTimer = Timer.builder("app.auth.principal.load")
+                .description("Principal resolution for a verified token (claims, cache or users lookup)")
+                .tag("mode", statelessMode ? "stateless" : "lookup")
+                .register(meterRegistry);
+    }
+
+    private Timer verifyTimer(String result) {
+        return Timer.builder("app.auth.jwt.verify")
+                .description("JWT signature, expiry and claims check per request carrying a Bearer token")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
     /**
      * Main filter logic: Extract JWT from Authorization header, validate, and authenticate user.
      * 
@@ -48,13 +91,18 @@ public class AuthTokenFilter extends OncePerRequestFilter {
             throws ServletException, IOException {
         try {
             String jwt = parseJwt(request);
-            if (jwt != null && jwtUtils.validateJwtToken(jwt)) {
-                // Extract username (email) from valid token
-                String username = jwtUtils.getUserNameFromJwtToken(jwt);
-
-                // Load user details from database
-                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-
+            // Verify signature/expiry and read claims in a single pass
+            Optional<Claims> claims = jwt == null ? Optional.empty() : verify(jwt);
+            // Resolve the principal from claims (stateless) or the principal cache/database
+            UserDetails userDetails = null;
+            if (claims.isPresent()) {
+                long start = System.nanoTime();
+                userDetails = loadPrincipal(claims.get());
+                long elapsed = System.nanoTime() - start;
+                principalTimer.record(elapsed, TimeUnit.NANOSECONDS);
+                RequestTiming.record(RequestTiming.Phase.PRINCIPAL, elapsed);
+            }
+            if (userDetails != null) {
                 // Create authentication token with user authorities (roles)
                 UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
                         userDetails, null, userDetails.getAuthorities());
@@ -73,13 +121,48 @@ public class AuthTokenFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
 
+    private Optional<Claims> verify(String jwt) {
+        long start = System.nanoTime();
+        Optional<Claims> claims = jwtUtils.parseClaims(jwt);
+        long elapsed = System.nanoTime() - start;
+        (claims.isPresent() ? validTokenTimer : invalidTokenTimer).record(elapsed, TimeUnit.NANOSECONDS);
+        RequestTiming.record(RequestTiming.Phase.JWT, elapsed);
+        return claims;
+    }
+
+    /**
+     * Resolves the principal for a verified token. In stateless mode, tokens that
+     * carry the user ID claim are trusted after a cached token-version check;
+     * otherwise the email subject is looked up through the principal cache.
+     *
+     * @param claims verified token claims
+     * @return UserDetails, or null if the token has been revoked
+     */
+    private UserDetails loadPrincipal(Claims claims) {
+        String userId = claims.get(JwtUtils.CLAIM_USER_ID, String.class);
+        if (statelessMode && userId != null) {
+            Number version = claims.get(JwtUtils.CLAIM_TOKEN_VERSION, Number.class);
+            if (version == null || !tokenVersionCache.isCurrent(userId, version.longValue())) {
+                logger.debug("Rejected revoked token for user {}", userId);
+                return null;
+            }
+            return userDetailsService.fromClaims(userId, claims.getSubject(),
+                    claims.get(JwtUtils.CLAIM_ROLE, String.class), version.longValue());
+        }
+
+        // Extract username (email) from valid token and load user details,
+        // from the principal cache falling back to the database
+        return principalCache.get(claims.getSubject(), userDetailsService::loadUserByUsername);
+    }
+
     /**
      * Parses JWT token from Authorization header (Bearer <token> format).
      * 
      * @param request HTTP request containing Authorization header
      * @return raw JWT token string or null if missing/invalid
      */
-    private String parseJwt(HttpServletRequest request) {
+    // Package-private for AuthTokenFilterBenchmark
+    String parseJwt(HttpServletRequest request) {
         String headerAuth = request.getHeader("Authorization");
 
         // Check for Bearer token format
@@ -0,0 +1,59 @@
+package com.github.adaken4.lets_play.security;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.crypto.bcrypt.BCrypt;
+
+/**
+ * Picks the BCrypt cost for the current hardware at startup.
+ * Each cost step doubles the work, so strengths are measured from the
+ * minimum upwards and the highest one whose median hash time stays within
+ * the target latency is chosen (never below the configured minimum).
+ */
+public final class BCryptCalibrator {
+
+    private static final Logger logger = LoggerFactory.getLogger(BCryptCalibrator.class);
+    private static final int SAMPLES = 3;
+
+    private BCryptCalibrator() {
+    }
+
+    /**
+     * @param targetLatency desired median time of one hash
+     * @param minStrength   lowest acceptable BCrypt cost (security floor)
+     * @param maxStrength   highest BCrypt cost to consider
+     * @return calibrated BCrypt cost
+     */
+    public static int calibrate(Duration targetLatency, int minStrength, int maxStrength) {
+        long targetNanos = targetLatency.toNanos();
+        // Warm up the JIT so the first measurement is not inflated
+        medianHashNanos(4);
+
+        int chosen = minStrength;
+        for (int strength = minStrength; strength <= maxStrength; strength++) {
+            long median = medianHashNanos(strength);
+            logger.debug("BCrypt strength {} takes {} ms", strength, median / 1_000_000);
+            if (median > targetNanos) {
+                break;
+            }
+            chosen = strength;
+        }
+
+        logger.info("Calibrated BCrypt strength {} for a {} ms target", chosen, targetLatency.toMillis());
+        return chosen;
+    }
+
+    private static long medianHashNanos(int strength) {
+        long[] samples = new long[SAMPLES];
+        for (int i = 0; i < SAMPLES; i++) {
+            long start = System.nanoTime();
+            BCrypt.hashpw("calibration-password", BCrypt.gensalt(strength));
+            samples[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(samples);
+        return samples[SAMPLES / 2];
+    }
+}
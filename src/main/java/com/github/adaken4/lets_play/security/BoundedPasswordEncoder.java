@@ -0,0 +1,176 @@
+package com.github.adaken4.lets_play.security;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import com.github.adaken4.lets_play.dto.HashingStatsResponse;
+import com.github.adaken4.lets_play.exception.ServiceUnavailableException;
+
+/**
+ * PasswordEncoder that runs hashing and verification on a dedicated,
+ * CPU-sized thread pool with a bounded queue (bulkhead).
+ * A burst of logins/registrations can then only occupy that pool instead of
+ * every request thread; once the queue is full callers fail fast with
+ * ServiceUnavailableException (503 + Retry-After).
+ *
+ * The workers stay platform threads in virtual-thread mode: hashing is pure
+ * CPU, and the pool size is what bounds it. Callers wait on a Future, which
+ * parks a virtual thread without pinning its carrier.
+ *
+ * As a MeterBinder bean it publishes hash time per operation, pool usage and
+ * rejections (app.security.password.*) once the MeterRegistry binds it.
+ */
+public class BoundedPasswordEncoder implements PasswordEncoder, MeterBinder, AutoCloseable {
+
+    private final PasswordEncoder delegate;
+    private final ThreadPoolExecutor executor;
+    private final int queueCapacity;
+    private final long retryAfterSeconds;
+
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder latencyNanos = new LongAdder();
+    private final LongAdder hashCount = new LongAdder();
+    private final LongAccumulator maxLatencyNanos = new LongAccumulator(Math::max, 0);
+
+    // Set by bindTo; hashing before that (startup calibration) is not recorded
+    private volatile Timer encodeTimer;
+    private volatile Timer matchesTimer;
+
+    /**
+     * @param delegate          encoder doing the actual hashing (e.g. BCrypt)
+     * @param threads           worker threads, 0 or less means one per CPU
+     * @param queueCapacity     maximum hashing jobs waiting for a worker
+     * @param retryAfterSeconds Retry-After hint returned when the queue is full
+     */
+    public BoundedPasswordEncoder(PasswordEncoder delegate, int threads, int queueCapacity, long retryAfterSeconds) {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadIds = new AtomicInteger();
+        this.delegate = delegate;
+        this.queueCapacity = queueCapacity;
+        this.retryAfterSeconds = retryAfterSeconds;
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                task -> {
+                    Thread thread = new Thread(task, "password-hash-" + threadIds.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return submit(() -> delegate.encode(rawPassword), encodeTimer);
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return submit(() -> delegate.matches(rawPassword, encodedPassword), matchesTimer);
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        // Only inspects the hash prefix, cheap enough for the caller thread
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    /**
+     * Snapshot of pool usage and hash latency for monitoring.
+     */
+    public HashingStatsResponse stats() {
+        long count = hashCount.sum();
+        return new HashingStatsResponse(
+                executor.getMaximumPoolSize(),
+                executor.getActiveCount(),
+                executor.getQueue().size(),
+                queueCapacity,
+                count,
+                rejected.sum(),
+                count == 0 ? 0 : latencyNanos.sum() / (double) count / 1_000_000,
+                maxLatencyNanos.get() / 1_000_000.0);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        encodeTimer = hashTimer(registry, "encode");
+        matchesTimer = hashTimer(registry, "matches");
+        Gauge.builder("app.security.password.pool.active", executor, ThreadPoolExecutor::getActiveCount)
+                .description("Hashing workers busy")
+                .register(registry);
+        Gauge.builder("app.security.password.pool.queued", executor, pool -> pool.getQueue().size())
+                .description("Hashing jobs waiting for a worker")
+                .register(registry);
+        FunctionCounter.builder("app.security.password.rejected", rejected, LongAdder::sum)
+                .description("Hashing jobs refused with 503 because the queue was full")
+                .register(registry);
+    }
+
+    private static Timer hashTimer(MeterRegistry registry, String operation) {
+        return Timer.builder("app.security.password.hash")
+                .description("Password hashing time on a worker, excluding the wait in the queue")
+                .tag("operation", operation)
+                .register(registry);
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+
+    /**
+     * Runs the hashing job on the pool and waits for its result.
+     */
+    private <T> T submit(Callable<T> job, Timer timer) {
+        Future<T> future;
+        try {
+            future = executor.submit(() -> timed(job, timer));
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new ServiceUnavailableException("Too many concurrent authentication requests", retryAfterSeconds);
+        }
+
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for password hashing", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        }
+    }
+
+    private <T> T timed(Callable<T> job, Timer timer) throws Exception {
+        long start = System.nanoTime();
+        try {
+            return job.call();
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            latencyNanos.add(elapsed);
+            hashCount.increment();
+            maxLatencyNanos.accumulate(elapsed);
+            if (timer != null) {
+                timer.record(elapsed, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+}
@@ -3,40 +3,80 @@ package com.github.adaken4.lets_play.security;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import com.github.adaken4.lets_play.dto.CacheStatsResponse;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
 import java.util.Date;
+import java.util.Optional;
 
 import javax.crypto.SecretKey;
 
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 
 /**
  * JWT utility class for generating, parsing, and validating JSON Web Tokens.
  * Handles token creation with user email as subject and 24-hour expiration.
  * Reads secret key from application properties for security.
+ *
+ * The signing key and parser are built once at startup. Verified tokens are
+ * cached by SHA-256 digest until their own expiration, so repeat requests with
+ * the same token skip signature verification and JSON parsing.
  */
 @Component
 public class JwtUtils {
 
+    // Custom claims used by the stateless authentication mode
+    public static final String CLAIM_USER_ID = "uid";
+    public static final String CLAIM_ROLE = "role";
+    public static final String CLAIM_TOKEN_VERSION = "ver";
+
     @Value("${app.jwt.secret}")
     private String jwtSecret;
 
     @Value("${app.jwt.expirationMs}")
     private int jwtExpirationMs;
 
+    @Value("${app.jwt.verified-cache.max-size}")
+    private long verifiedCacheMaxSize;
+
+    private SecretKey signingKey;
+    private JwtParser jwtParser;
+    private Cache<String, Claims> verifiedTokens;
+
     /**
-     * Creates HMAC signing key from Base64-decoded secret.
-     * 
-     * @return SecretKey for JWT signing/verification
+     * Creates the HMAC signing key, the shared (thread-safe) parser and the
+     * verified-token cache. Entries expire exactly at the token's "exp" claim.
      */
-    private SecretKey key() {
-        return Keys.hmacShaKeyFor(Decoders.BASE64.decode(jwtSecret));
+    @PostConstruct
+    void init() {
+        signingKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(jwtSecret));
+        jwtParser = Jwts.parser().verifyWith(signingKey).build();
+        verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(verifiedCacheMaxSize)
+                .expireAfter(Expiry.creating((String digest, Claims claims) -> Duration.between(
+                        Instant.now(), claims.getExpiration().toInstant())))
+                .recordStats()
+                .build();
     }
 
     /**
      * Generates JWT token for user authentication.
-     * 
+     *
      * @param username user's email (stored as token subject)
      * @return compact JWT string
      */
@@ -45,34 +85,102 @@ public class JwtUtils {
                 .subject(username)
                 .issuedAt(new Date())
                 .expiration(new Date((new Date()).getTime() + jwtExpirationMs))
-                .signWith(key())
+                .signWith(signingKey)
+                .compact();
+    }
+
+    /**
+     * Generates JWT token that also carries the user ID, role and token version,
+     * so the stateless mode can authenticate requests without a users lookup.
+     *
+     * @param username     user's email (stored as token subject)
+     * @param userId       user's ID
+     * @param role         user's role (e.g. USER, ADMIN)
+     * @param tokenVersion user's current token version
+     * @return compact JWT string
+     */
+    public String generateToken(String username, String userId, String role, long tokenVersion) {
+        return Jwts.builder()
+                .subject(username)
+                .claim(CLAIM_USER_ID, userId)
+                .claim(CLAIM_ROLE, role)
+                .claim(CLAIM_TOKEN_VERSION, tokenVersion)
+                .issuedAt(new Date())
+                .expiration(new Date((new Date()).getTime() + jwtExpirationMs))
+                .signWith(signingKey)
                 .compact();
     }
 
+    /**
+     * Verifies signature and expiration and returns the token claims in one pass.
+     * Previously verified tokens are served from the cache until they expire.
+     *
+     * @param token Bearer token (without "Bearer " prefix)
+     * @return claims if token valid, empty if missing/expired/invalid
+     */
+    public Optional<Claims> parseClaims(String token) {
+        if (token == null || token.isEmpty()) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(verifiedTokens.get(digest(token), digest -> verify(token)));
+        } catch (JwtException | IllegalArgumentException e) {
+            return Optional.empty();
+        }
+    }
+
     /**
      * Extracts username (email) from valid JWT token.
-     * 
+     *
      * @param token JWT token string
      * @return username from token subject
      * @throws io.jsonwebtoken.JwtException if token invalid/malformed
      */
     public String getUserNameFromJwtToken(String token) {
-        return Jwts.parser().verifyWith(key()).build()
-                .parseSignedClaims(token).getPayload().getSubject();
+        return parseClaims(token)
+                .orElseThrow(() -> new JwtException("Invalid JWT token"))
+                .getSubject();
     }
 
     /**
      * Validates JWT token signature and expiration.
-     * 
+     *
      * @param authToken Bearer token (without "Bearer " prefix)
      * @return true if token valid, false if expired/invalid
      */
     public boolean validateJwtToken(String authToken) {
+        return parseClaims(authToken).isPresent();
+    }
+
+    /**
+     * Snapshot of the verified-token cache counters for monitoring.
+     */
+    public CacheStatsResponse verifiedTokenStats() {
+        return CacheStatsResponse.from(verifiedTokens);
+    }
+
+    /**
+     * Full signature and expiration check, bypassing the cache.
+     * Tokens without an expiration are rejected: they would never expire,
+     * and the cache keys its entries' lifetime on it.
+     */
+    Claims verify(String token) {
+        Claims claims = jwtParser.parseSignedClaims(token).getPayload();
+        if (claims.getExpiration() == null) {
+            throw new JwtException("JWT has no expiration");
+        }
+        return claims;
+    }
+
+    /**
+     * Cache key: the raw token is never kept in memory, only its SHA-256 digest.
+     */
+    private static String digest(String token) {
         try {
-            Jwts.parser().verifyWith(key()).build().parseSignedClaims(authToken);
-            return true;
-        } catch (Exception e) {
-            return false;
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().withoutPadding().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
         }
     }
 }
@@ -0,0 +1,65 @@
+package com.github.adaken4.lets_play.security;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+import com.github.adaken4.lets_play.dto.CacheStatsResponse;
+import com.github.adaken4.lets_play.service.CacheLoads;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * Bounded in-memory cache of authenticated principals, keyed by email.
+ * Lets AuthTokenFilter skip the users lookup for repeat Bearer requests.
+ * Entries expire after a fixed TTL and are invalidated by UserService
+ * whenever a user is updated or deleted.
+ */
+@Component
+public class PrincipalCache {
+
+    private final AsyncCache<String, UserDetails> cache;
+
+    public PrincipalCache(@Value("${app.auth.principal-cache.max-size}") long maxSize,
+            @Value("${app.auth.principal-cache.ttl}") Duration ttl) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .buildAsync();
+    }
+
+    /**
+     * Returns the cached principal for the email, loading it on a miss on the
+     * calling thread, outside the cache's locks (see CacheLoads).
+     * Loader exceptions (e.g. UsernameNotFoundException) propagate and nothing is cached.
+     *
+     * @param email  user's email (token subject)
+     * @param loader fallback used on a miss, typically UserDetailsService::loadUserByUsername
+     * @return cached or freshly loaded UserDetails
+     */
+    public UserDetails get(String email, Function<String, UserDetails> loader) {
+        return CacheLoads.get(cache, email, loader);
+    }
+
+    /**
+     * Drops the cached principal for the email, if any.
+     *
+     * @param email user's email
+     */
+    public void invalidate(String email) {
+        if (email != null) {
+            cache.synchronous().invalidate(email);
+        }
+    }
+
+    /**
+     * Snapshot of hit/miss/eviction counters for monitoring.
+     */
+    public CacheStatsResponse stats() {
+        return CacheStatsResponse.from(cache.synchronous());
+    }
+}
@@ -0,0 +1,76 @@
+package com.github.adaken4.lets_play.security;
+
+import java.io.IOException;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import com.github.adaken4.lets_play.security.RateLimiter.Budget;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Rate limits every API request by client IP and, once AuthTokenFilter has
+ * authenticated it, by user (see RateLimiter). Requests over budget are
+ * refused with 429 and a Retry-After before any controller work, so a burst
+ * against /api/auth/** cannot queue up unbounded password hashing.
+ *
+ * The client IP is the request's remote address; behind a proxy set
+ * server.forward-headers-strategy so it is taken from X-Forwarded-For.
+ */
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final String BODY =
+            "{\"error\":\"Too Many Requests\",\"message\":\"Rate limit exceeded, retry later.\"}";
+
+    @Autowired
+    private RateLimiter rateLimiter;
+
+    // Health checks and metric scrapes are not client traffic
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return request.getRequestURI().startsWith("/actuator/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        long retryAfter = rateLimiter.tryAcquire(budgetOf(request), request.getRemoteAddr(), currentUser());
+        if (retryAfter > 0) {
+            response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfter));
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.getWriter().write(BODY);
+            return;
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    private static Budget budgetOf(HttpServletRequest request) {
+        if (request.getRequestURI().startsWith("/api/auth/")) {
+            return Budget.AUTH;
+        }
+        return switch (request.getMethod()) {
+            case "GET", "HEAD", "OPTIONS" -> Budget.READ;
+            default -> Budget.WRITE;
+        };
+    }
+
+    private static String currentUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null && authentication.getPrincipal() instanceof UserDetails user
+                ? user.getUsername()
+                : null;
+    }
+}
@@ -0,0 +1,233 @@
+package com.github.adaken4.lets_play.security;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.adaken4.lets_play.exception.TooManyRequestsException;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Token buckets per client IP and per user, with separate budgets for the
+ * auth endpoints (password hashing), writes and reads.
+ *
+ * Buckets live in bounded Caffeine caches, one per budget and key type:
+ * lookups of existing buckets take no lock (the map is striped per bin and
+ * only a new key locks its bin), buckets are TokenBuckets updated with a
+ * compare-and-set, and a bucket left idle for the idle timeout is dropped.
+ * The idle timeout should exceed the time a bucket takes to refill, so that
+ * dropping one never hands out more than it would have held anyway.
+ *
+ * Failed attempts against an account are also counted per account, across
+ * all addresses, to cap distributed password guessing. Addresses that have
+ * logged in to the account before are exempt from that shared budget and
+ * only answer for their own failures, so guessing from elsewhere cannot
+ * lock the owner out of a known address.
+ */
+@Component
+public class RateLimiter implements MeterBinder {
+
+    public enum Budget {
+        AUTH("auth"),
+        WRITE("write"),
+        READ("read");
+
+        private final String tag;
+
+        Budget(String tag) {
+            this.tag = tag;
+        }
+    }
+
+    private enum Scope {
+        IP("ip"),
+        USER("user"),
+        USER_IP("user_ip");
+
+        private final String tag;
+
+        Scope(String tag) {
+            this.tag = tag;
+        }
+    }
+
+    // How long an address stays known to an account after its last successful login
+    private static final Duration KNOWN_ADDRESS_TTL = Duration.ofDays(30);
+
+    // Per budget: nanoseconds per token and burst tolerance (see TokenBucket)
+    private final Map<Budget, long[]> limits = new EnumMap<>(Budget.class);
+    private final Map<Scope, Map<Budget, Cache<String, TokenBucket>>> buckets = new EnumMap<>(Scope.class);
+    // "account address" pairs that have logged in successfully
+    private final Cache<String, Boolean> knownAddresses;
+
+    private final boolean enabled;
+
+    // Set by bindTo, indexed [scope][budget]
+    private volatile Counter[][] rejected;
+
+    public RateLimiter(@Value("${app.rate-limit.enabled}") boolean enabled,
+            @Value("${app.rate-limit.auth.burst}") int authBurst,
+            @Value("${app.rate-limit.auth.per-second}") double authPerSecond,
+            @Value("${app.rate-limit.write.burst}") int writeBurst,
+            @Value("${app.rate-limit.write.per-second}") double writePerSecond,
+            @Value("${app.rate-limit.read.burst}") int readBurst,
+            @Value("${app.rate-limit.read.per-second}") double readPerSecond,
+            @Value("${app.rate-limit.max-keys}") long maxKeys,
+            @Value("${app.rate-limit.idle-timeout}") Duration idleTimeout) {
+        this.enabled = enabled;
+        limits.put(Budget.AUTH, limit(authBurst, authPerSecond));
+        limits.put(Budget.WRITE, limit(writeBurst, writePerSecond));
+        limits.put(Budget.READ, limit(readBurst, readPerSecond));
+        for (Scope scope : Scope.values()) {
+            Map<Budget, Cache<String, TokenBucket>> byBudget = new EnumMap<>(Budget.class);
+            for (Budget budget : Budget.values()) {
+                byBudget.put(budget, Caffeine.newBuilder()
+                        .maximumSize(maxKeys)
+                        .expireAfterAccess(idleTimeout)
+                        .build());
+            }
+            buckets.put(scope, byBudget);
+        }
+        knownAddresses = Caffeine.newBuilder()
+                .maximumSize(maxKeys)
+                .expireAfterAccess(KNOWN_ADDRESS_TTL)
+                .build();
+    }
+
+    private static long[] limit(int burst, double perSecond) {
+        if (burst < 1 || perSecond <= 0) {
+            throw new IllegalArgumentException("Rate limit needs a burst of at least 1 and a positive rate");
+        }
+        long interval = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / perSecond));
+        return new long[] { interval, (burst - 1) * interval };
+    }
+
+    /**
+     * Takes a token from the IP's bucket and, if given, the user's.
+     *
+     * @param ip   client address
+     * @param user authenticated user, null for anonymous requests
+     * @return 0 if allowed, otherwise whole seconds until a retry can succeed
+     */
+    public long tryAcquire(Budget budget, String ip, String user) {
+        if (!enabled) {
+            return 0;
+        }
+        long retryAfter = acquire(Scope.IP, budget, ip);
+        if (retryAfter == 0 && user != null) {
+            retryAfter = acquire(Scope.USER, budget, user);
+        }
+        return retryAfter;
+    }
+
+    /**
+     * Checks, without taking a token, that the account may attempt to log
+     * in from this address: from an address it has logged in from before
+     * if that pair's bucket is not empty, from any other if the account's
+     * bucket is not empty. Only failed attempts are charged, see chargeUser.
+     *
+     * @param user account the attempt names
+     * @param ip   client address
+     * @throws TooManyRequestsException if the bucket is empty
+     */
+    public void requireUser(Budget budget, String user, String ip) {
+        if (!enabled || user == null) {
+            return;
+        }
+        String account = userKey(user);
+        String address = addressKey(account, ip);
+        Scope scope = knownAddresses.getIfPresent(address) != null ? Scope.USER_IP : Scope.USER;
+        TokenBucket bucket = buckets.get(scope).get(budget).getIfPresent(scope == Scope.USER ? account : address);
+        long wait = bucket == null ? 0 : bucket.waitTime(System.nanoTime(), limits.get(budget)[1]);
+        if (wait > 0) {
+            throw new TooManyRequestsException("too many attempts for this account", rejected(scope, budget, wait));
+        }
+    }
+
+    /**
+     * Takes a token from the account's bucket and from the account and
+     * address pair's after a failed attempt. An empty bucket stays empty;
+     * the next requireUser that checks it refuses.
+     */
+    public void chargeUser(Budget budget, String user, String ip) {
+        if (!enabled || user == null) {
+            return;
+        }
+        String account = userKey(user);
+        charge(Scope.USER, budget, account);
+        charge(Scope.USER_IP, budget, addressKey(account, ip));
+    }
+
+    /**
+     * Records a successful login, so that this address no longer depends
+     * on the account's shared budget.
+     */
+    public void trustAddress(String user, String ip) {
+        if (!enabled || user == null) {
+            return;
+        }
+        knownAddresses.put(addressKey(userKey(user), ip), Boolean.TRUE);
+    }
+
+    private void charge(Scope scope, Budget budget, String key) {
+        long[] limit = limits.get(budget);
+        long now = System.nanoTime();
+        buckets.get(scope).get(budget).get(key, k -> new TokenBucket(now)).tryAcquire(now, limit[0], limit[1]);
+    }
+
+    private static String userKey(String user) {
+        return user.toLowerCase(Locale.ROOT);
+    }
+
+    private static String addressKey(String account, String ip) {
+        return account + ' ' + ip;
+    }
+
+    private long acquire(Scope scope, Budget budget, String key) {
+        long[] limit = limits.get(budget);
+        long now = System.nanoTime();
+        TokenBucket bucket = buckets.get(scope).get(budget).get(key, k -> new TokenBucket(now));
+        long wait = bucket.tryAcquire(now, limit[0], limit[1]);
+        return wait == 0 ? 0 : rejected(scope, budget, wait);
+    }
+
+    // Counts a refusal and rounds the wait up to whole seconds for Retry-After
+    private long rejected(Scope scope, Budget budget, long wait) {
+        Counter[][] counters = rejected;
+        if (counters != null) {
+            counters[scope.ordinal()][budget.ordinal()].increment();
+        }
+        return Math.max(1, TimeUnit.NANOSECONDS.toSeconds(wait + TimeUnit.SECONDS.toNanos(1) - 1));
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Counter[][] counters = new Counter[Scope.values().length][Budget.values().length];
+        for (Scope scope : Scope.values()) {
+            for (Budget budget : Budget.values()) {
+                counters[scope.ordinal()][budget.ordinal()] = Counter.builder("app.rate-limit.rejected")
+                        .description("Requests refused with 429 because a token bucket was empty")
+                        .tag("scope", scope.tag)
+                        .tag("budget", budget.tag)
+                        .register(registry);
+                Gauge.builder("app.rate-limit.keys", buckets.get(scope).get(budget), Cache::estimatedSize)
+                        .description("Token buckets held (approximate)")
+                        .tag("scope", scope.tag)
+                        .tag("budget", budget.tag)
+                        .register(registry);
+            }
+        }
+        rejected = counters;
+    }
+}
@@ -0,0 +1,56 @@
+package com.github.adaken4.lets_play.security;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket in a single word, kept as the generic cell rate
+ * algorithm: instead of a token count and a refill time it stores the time
+ * at which the bucket will be full again (theoretical arrival time). A
+ * request is allowed while that time is at most burst - 1 intervals ahead,
+ * and pushes it one interval further, with one compare-and-set.
+ *
+ * Rejections only read, so a client hammering an empty bucket does not
+ * contend with anything.
+ */
+final class TokenBucket {
+
+    private final AtomicLong fullAt;
+
+    /**
+     * @param now current System.nanoTime(); the bucket starts full
+     */
+    TokenBucket(long now) {
+        this.fullAt = new AtomicLong(now);
+    }
+
+    /**
+     * Takes one token if available.
+     *
+     * @param now       current System.nanoTime()
+     * @param interval  nanoseconds to refill one token
+     * @param tolerance nanoseconds of burst: (burst - 1) * interval
+     * @return 0 if the token was taken, otherwise nanoseconds until one is available
+     */
+    long tryAcquire(long now, long interval, long tolerance) {
+        while (true) {
+            long current = fullAt.get();
+            long base = current - now > 0 ? current : now;
+            long wait = base - now - tolerance;
+            if (wait > 0) {
+                return wait;
+            }
+            if (fullAt.compareAndSet(current, base + interval)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Like tryAcquire, but only looks.
+     *
+     * @return 0 if a token is available, otherwise nanoseconds until one is
+     */
+    long waitTime(long now, long tolerance) {
+        return Math.max(0, fullAt.get() - now - tolerance);
+    }
+}
@@ -0,0 +1,79 @@
+package com.github.adaken4.lets_play.security;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.adaken4.lets_play.dto.CacheStatsResponse;
+import com.github.adaken4.lets_play.model.User;
+import com.github.adaken4.lets_play.repository.UserRepository;
+import com.github.adaken4.lets_play.service.CacheLoads;
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * Cached per-user token versions used to revoke stateless JWTs.
+ * Local changes are written through by UserService; changes made on other
+ * nodes are picked up by a background refresh after the configured interval,
+ * run on the application task executor (virtual threads when enabled).
+ * Misses load on the calling thread (see CacheLoads).
+ * An empty value means the user no longer exists.
+ */
+@Component
+public class TokenVersionCache {
+
+    private final AsyncLoadingCache<String, Optional<Long>> versions;
+    private final Function<String, Optional<Long>> loader;
+
+    public TokenVersionCache(UserRepository userRepository,
+            @Qualifier("applicationTaskExecutor") Executor executor,
+            @Value("${app.auth.token-version-cache.max-size}") long maxSize,
+            @Value("${app.auth.token-version-cache.refresh}") Duration refresh) {
+        this.loader = userId -> userRepository.findTokenVersionById(userId).map(User::getTokenVersion);
+        this.versions = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .refreshAfterWrite(refresh)
+                .executor(executor)
+                .recordStats()
+                .buildAsync(loader::apply);
+    }
+
+    /**
+     * Checks a token's version claim against the user's current version.
+     *
+     * @param userId  user ID from the token
+     * @param version token version from the token
+     * @return true if the user still exists and the versions match
+     */
+    public boolean isCurrent(String userId, long version) {
+        return CacheLoads.get(versions, userId, loader)
+                .map(current -> current == version)
+                .orElse(false);
+    }
+
+    /**
+     * Records a new version after a local credential change.
+     */
+    public void update(String userId, long version) {
+        versions.synchronous().put(userId, Optional.of(version));
+    }
+
+    /**
+     * Records that the user was deleted, rejecting all of its tokens.
+     */
+    public void markDeleted(String userId) {
+        versions.synchronous().put(userId, Optional.empty());
+    }
+
+    /**
+     * Snapshot of hit/miss/eviction counters for monitoring.
+     */
+    public CacheStatsResponse stats() {
+        return CacheStatsResponse.from(versions.synchronous());
+    }
+}
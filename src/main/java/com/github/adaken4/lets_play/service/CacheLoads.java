@@ -0,0 +1,58 @@
+package com.github.adaken4.lets_play.service;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CancellationException;
+import java.util.function.Function;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+
+/**
+ * Cache-miss loading for caches whose loader does database I/O.
+ *
+ * A synchronous Caffeine cache runs the loader inside ConcurrentHashMap.compute,
+ * holding a bin monitor for the whole database round trip: other keys in the
+ * bin wait, and on a virtual thread the carrier can be pinned. Here the map
+ * only stores a placeholder future; the loader then runs on the calling thread
+ * with no lock held, and concurrent callers for the same key park on the future.
+ */
+public final class CacheLoads {
+
+    private CacheLoads() {
+    }
+
+    /**
+     * Returns the cached value, loading it on the calling thread on a miss.
+     * A null result is returned but not cached. A loader exception propagates
+     * to its caller only; callers waiting on that load then run the loader themselves.
+     *
+     * @param cache  cache holding the value futures
+     * @param key    cache key
+     * @param loader fallback used on a miss
+     * @return cached or freshly loaded value, or null
+     */
+    public static <K, V> V get(AsyncCache<K, V> cache, K key, Function<? super K, ? extends V> loader) {
+        while (true) {
+            CompletableFuture<V> load = new CompletableFuture<>();
+            CompletableFuture<V> cached = cache.get(key, (k, executor) -> load);
+            if (cached == load) {
+                V value;
+                try {
+                    value = loader.apply(key);
+                } catch (RuntimeException | Error e) {
+                    // Cancelled rather than failed: Caffeine drops it without logging,
+                    // and waiters retry with their own load, as with a synchronous cache
+                    load.cancel(false);
+                    throw e;
+                }
+                load.complete(value);
+                return value;
+            }
+
+            try {
+                return cached.join();
+            } catch (CancellationException e) {
+                cache.asMap().remove(key, cached);
+            }
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.github.adaken4.lets_play.service;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.github.adaken4.lets_play.dto.CascadeDeleteJobResponse;
+import com.github.adaken4.lets_play.model.CascadeDeleteJob;
+import com.github.adaken4.lets_play.repository.CascadeDeleteJobRepository;
+import com.github.adaken4.lets_play.repository.ProductRepository;
+import com.github.adaken4.lets_play.repository.ProductRepositoryCustom.DeletedBatch;
+
+/**
+ * Deletes the products of deleted users in the background.
+ *
+ * UserService enqueues a persisted job per deleted user. Every poll interval
+ * a worker claims the oldest unfinished job under a lease and removes the
+ * user's products in batches (one deleteMany on a userId_id index range each),
+ * pacing itself to max-deletes-per-second so live traffic keeps its latency.
+ * Progress is saved after every batch; after a crash the lease expires and
+ * the job resumes with whatever products are left.
+ */
+@Service
+public class CascadeDeleteService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CascadeDeleteService.class);
+
+    @Autowired
+    private CascadeDeleteJobRepository jobRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductCache productCache;
+
+    @Autowired
+    private ProductAutocompleteIndex autocompleteIndex;
+
+    @Value("${app.users.cascade.batch-size}")
+    private int batchSize;
+
+    @Value("${app.users.cascade.max-deletes-per-second}")
+    private int maxDeletesPerSecond;
+
+    @Value("${app.users.cascade.lease}")
+    private Duration lease;
+
+    // Unique per process, so a restarted node does not inherit its old leases
+    private final String worker = hostname() + "-" + UUID.randomUUID();
+
+    /**
+     * Schedules deletion of all products owned by a deleted user.
+     *
+     * @param userId
+     */
+    public void enqueue(String userId) {
+        jobRepository.enqueue(userId, Instant.now());
+    }
+
+    /**
+     * Runs unfinished jobs one after another until none is claimable.
+     */
+    @Scheduled(fixedDelayString = "${app.users.cascade.poll-interval}")
+    public void runPendingJobs() {
+        Optional<CascadeDeleteJob> job;
+        while ((job = jobRepository.claimNext(worker, Instant.now(), lease)).isPresent()) {
+            try {
+                run(job.get());
+            } catch (RuntimeException e) {
+                // Lease expires and the job is retried on the next poll
+                logger.warn("Cascade delete for user {} failed, will retry", job.get().getUserId(), e);
+                return;
+            }
+        }
+    }
+
+    private void run(CascadeDeleteJob job) {
+        String userId = job.getUserId();
+        if (job.getStartedAt() == null) {
+            jobRepository.start(userId, worker, productRepository.countByUserId(userId), Instant.now());
+        }
+
+        // Minimum time per batch that keeps deletes under the configured rate
+        long batchMillis = 1000L * batchSize / maxDeletesPerSecond;
+        while (true) {
+            long start = System.currentTimeMillis();
+            DeletedBatch batch = productRepository.deleteOwnedBatch(userId, batchSize);
+            if (batch.ids().isEmpty()) {
+                break;
+            }
+            batch.ids().forEach(id -> {
+                productCache.evict(id);
+                autocompleteIndex.remove(id);
+            });
+            if (!jobRepository.recordProgress(userId, worker, batch.deleted(), Instant.now(), lease)) {
+                logger.warn("Lost lease on cascade delete for user {}", userId);
+                return;
+            }
+            pause(batchMillis - (System.currentTimeMillis() - start));
+        }
+
+        if (jobRepository.complete(userId, worker, Instant.now())) {
+            logger.info("Cascade delete for user {} finished", userId);
+        }
+    }
+
+    /**
+     * @return the 50 most recent jobs, newest first
+     */
+    public List<CascadeDeleteJobResponse> getJobs() {
+        return jobRepository.findTop50ByOrderByCreatedAtDesc().stream()
+                .map(CascadeDeleteJobResponse::from)
+                .toList();
+    }
+
+    public Optional<CascadeDeleteJobResponse> getJob(String userId) {
+        return jobRepository.findById(userId).map(CascadeDeleteJobResponse::from);
+    }
+
+    private static void pause(long millis) {
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while pacing cascade delete", e);
+        }
+    }
+
+    private static String hostname() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            return "unknown";
+        }
+    }
+}
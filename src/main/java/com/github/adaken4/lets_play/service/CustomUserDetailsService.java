@@ -7,6 +7,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
@@ -20,7 +21,7 @@ import com.github.adaken4.lets_play.repository.UserRepository;
  * Maps User entity to Spring Security's UserDetails for authorization.
  */
 @Service
-public class CustomUserDetailsService implements UserDetailsService {
+public class CustomUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
 
     @Autowired
     private UserRepository userRepository;
@@ -39,23 +40,80 @@ public class CustomUserDetailsService implements UserDetailsService {
                 .orElseThrow(() -> new UsernameNotFoundException("User not found: " + email));
 
         // Return UserDetailsImpl instead of the default builder
-        List<GrantedAuthority> authorities = List.of(
-            new SimpleGrantedAuthority("ROLE_" + user.getRole())
-        );
-        return new UserDetailsImpl(user, authorities);
+        return new UserDetailsImpl(user, authoritiesFor(user.getRole()));
         
     }
 
+    /**
+     * Stores a rehashed password after a successful login when the stored hash
+     * is not at the current BCrypt cost (called by DaoAuthenticationProvider).
+     * Only the password field is written; the token version is left untouched.
+     *
+     * @param user        authenticated principal
+     * @param newPassword hash produced with the current encoder
+     * @return principal carrying the new hash
+     */
+    @Override
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        UserDetailsImpl principal = (UserDetailsImpl) user;
+        userRepository.updatePasswordById(principal.getId(), newPassword);
+        User updated = new User(principal.getId(), null, principal.getUsername(), newPassword,
+                principal.getRole(), principal.getTokenVersion());
+        return new UserDetailsImpl(updated, principal.getAuthorities());
+    }
+
+    /**
+     * Builds the principal straight from verified token claims (stateless mode).
+     * No password is held since the request was authenticated by the token.
+     *
+     * @param id           user ID claim
+     * @param email        token subject
+     * @param role         role claim
+     * @param tokenVersion token version claim
+     * @return UserDetailsImpl carrying ID and authorities
+     */
+    public UserDetailsImpl fromClaims(String id, String email, String role, long tokenVersion) {
+        return new UserDetailsImpl(id, email, role, tokenVersion, authoritiesFor(role));
+    }
+
+    private List<GrantedAuthority> authoritiesFor(String role) {
+        return List.of(new SimpleGrantedAuthority("ROLE_" + role));
+    }
+
+    /**
+     * Principal carrying everything needed to issue a token and answer a login,
+     * so the user document loaded during authentication is never fetched twice.
+     */
     public class UserDetailsImpl extends org.springframework.security.core.userdetails.User {
         private final String id;
+        private final String role;
+        private final long tokenVersion;
 
         public UserDetailsImpl(User user, Collection<? extends GrantedAuthority> authorities) {
             super(user.getEmail(), user.getPassword(), authorities);
             this.id = user.getId();
+            this.role = user.getRole();
+            this.tokenVersion = user.getTokenVersion();
+        }
+
+        public UserDetailsImpl(String id, String email, String role, long tokenVersion,
+                Collection<? extends GrantedAuthority> authorities) {
+            super(email, "", authorities);
+            this.id = id;
+            this.role = role;
+            this.tokenVersion = tokenVersion;
         }
 
         public String getId() {
             return id;
         }
+
+        public String getRole() {
+            return role;
+        }
+
+        public long getTokenVersion() {
+            return tokenVersion;
+        }
     }
 }
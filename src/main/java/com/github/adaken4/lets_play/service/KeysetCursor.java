@@ -0,0 +1,104 @@
+package com.github.adaken4.lets_play.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+
+import org.bson.Document;
+import org.bson.json.JsonParseException;
+import org.springframework.data.domain.Sort;
+
+import com.github.adaken4.lets_play.dto.CursorPage;
+import com.github.adaken4.lets_play.exception.InvalidCursorException;
+import com.github.adaken4.lets_play.exception.UnsupportedSortException;
+
+/**
+ * Position in a keyset-paginated listing: the sort field and direction plus
+ * the sort value and _id of the last row returned.
+ * Clients only see it as an opaque URL-safe string.
+ */
+public record KeysetCursor(String field, Sort.Direction direction, Object value, String id) {
+
+    /**
+     * First page for the requested sort (first order only, defaults to _id ascending).
+     *
+     * @param sort          sort from the request's Pageable
+     * @param allowedFields sortable fields backed by a {field: 1, _id: 1} index
+     * @return cursor positioned before the first row
+     * @throws UnsupportedSortException if the sort field is not keyset-sortable
+     */
+    public static KeysetCursor start(Sort sort, Set<String> allowedFields) {
+        Sort.Order order = sort.stream().findFirst().orElse(Sort.Order.asc("id"));
+        if (!allowedFields.contains(order.getProperty())) {
+            throw new UnsupportedSortException(order.getProperty(), allowedFields);
+        }
+        return new KeysetCursor(order.getProperty(), order.getDirection(), null, null);
+    }
+
+    /**
+     * Decodes a cursor issued by {@link #encode()}.
+     * Values are restricted to strings and numbers so a forged cursor cannot
+     * smuggle query operators into the keyset predicate.
+     */
+    public static KeysetCursor decode(String cursor, Set<String> allowedFields) {
+        Document document;
+        try {
+            document = Document.parse(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8));
+        } catch (IllegalArgumentException | JsonParseException e) {
+            throw new InvalidCursorException("malformed");
+        }
+
+        Object field = document.get("f");
+        Object direction = document.get("d");
+        Object value = document.get("v");
+        Object id = document.get("i");
+        if (!(field instanceof String f) || !allowedFields.contains(f)
+                || !(direction instanceof String d) || Sort.Direction.fromOptionalString(d).isEmpty()
+                || !(id instanceof String i)
+                || (value != null && !(value instanceof String) && !(value instanceof Number))) {
+            throw new InvalidCursorException("malformed");
+        }
+        return new KeysetCursor(f, Sort.Direction.fromString(d), value, i);
+    }
+
+    /**
+     * @return cursor positioned after the given row
+     */
+    public KeysetCursor after(Object lastValue, String lastId) {
+        return new KeysetCursor(field, direction, lastValue, lastId);
+    }
+
+    /**
+     * Builds the response page from rows fetched with limit size + 1: the extra
+     * row only signals that another page exists, so no count query is needed.
+     *
+     * @param rows      rows after this cursor, at most size + 1
+     * @param size      requested page size
+     * @param sortValue reads this cursor's sort field from a row
+     * @param idOf      reads the _id from a row
+     * @param mapper    maps a row to its response DTO
+     * @return page with the cursor of the following page, or null if none
+     */
+    public <E, R> CursorPage<R> toPage(List<E> rows, int size, Function<E, Object> sortValue,
+            Function<E, String> idOf, Function<E, R> mapper) {
+        boolean hasNext = rows.size() > size;
+        List<E> content = hasNext ? rows.subList(0, size) : rows;
+        String next = null;
+        if (hasNext) {
+            E last = content.get(content.size() - 1);
+            next = after(sortValue.apply(last), idOf.apply(last)).encode();
+        }
+        return new CursorPage<>(content.stream().map(mapper).toList(), size, next);
+    }
+
+    public String encode() {
+        Document document = new Document("f", field)
+                .append("d", direction.name())
+                .append("v", value)
+                .append("i", id);
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(document.toJson().getBytes(StandardCharsets.UTF_8));
+    }
+}
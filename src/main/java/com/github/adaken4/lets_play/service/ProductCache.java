@@ -0,0 +1,121 @@
+package com.github.adaken4.lets_play.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.adaken4.lets_play.dto.CacheStatsResponse;
+import com.github.adaken4.lets_play.dto.ProductCacheStatsResponse;
+import com.github.adaken4.lets_play.dto.ProductCacheStatsResponse.ChangeStreamState;
+import com.github.adaken4.lets_play.dto.ProductResponse;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * In-process near-cache for single product reads (GET /api/products/{id}).
+ * Bounded by size and TTL. ProductService evicts entries after local writes;
+ * writes made by other replicas are evicted from the products change stream,
+ * and the delay between the write and that eviction is tracked as staleness.
+ */
+@Component
+public class ProductCache {
+
+    private final AsyncCache<String, ProductResponse> cache;
+
+    private final LongAdder localInvalidations = new LongAdder();
+    private final LongAdder remoteInvalidations = new LongAdder();
+    private final LongAdder stalenessMillis = new LongAdder();
+    private final LongAccumulator maxStalenessMillis = new LongAccumulator(Math::max, 0);
+
+    // Set by ProductChangeSubscription when change streams are enabled
+    private volatile ChangeStreamState changeStream = ChangeStreamState.DISABLED;
+    private final LongAdder changeStreamResubscriptions = new LongAdder();
+
+    public ProductCache(@Value("${app.products.cache.max-size}") long maxSize,
+            @Value("${app.products.cache.ttl}") Duration ttl) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .buildAsync();
+    }
+
+    /**
+     * Returns the cached product, loading it on a miss. Missing products are not cached.
+     * The load runs on the calling thread outside the cache's locks (see CacheLoads).
+     * An eviction racing with the load drops the pending entry, so its result is
+     * returned to the caller but never cached: a stale read cannot outlive a concurrent write.
+     *
+     * @param id     product ID
+     * @param loader fallback used on a miss
+     * @return ProductResponse if found
+     */
+    public Optional<ProductResponse> get(String id, Function<String, Optional<ProductResponse>> loader) {
+        return Optional.ofNullable(CacheLoads.get(cache, id, key -> loader.apply(key).orElse(null)));
+    }
+
+    /**
+     * Evicts a product after a write on this node.
+     */
+    public void evict(String id) {
+        cache.synchronous().invalidate(id);
+        localInvalidations.increment();
+    }
+
+    /**
+     * Evicts a product after a change-stream event from any node.
+     *
+     * @param id        product ID from the event's document key
+     * @param writeTime server time of the write, if known
+     */
+    public void evictRemote(String id, Instant writeTime) {
+        cache.synchronous().invalidate(id);
+        remoteInvalidations.increment();
+        if (writeTime != null) {
+            long staleness = Math.max(0, Duration.between(writeTime, Instant.now()).toMillis());
+            stalenessMillis.add(staleness);
+            maxStalenessMillis.accumulate(staleness);
+        }
+    }
+
+    /**
+     * Evicts every product, e.g. after change-stream events were missed.
+     */
+    public void evictAll() {
+        cache.synchronous().invalidateAll();
+    }
+
+    void changeStreamState(ChangeStreamState state) {
+        changeStream = state;
+    }
+
+    void changeStreamResubscribed() {
+        changeStreamResubscriptions.increment();
+    }
+
+    public CacheStatsResponse cacheStats() {
+        return CacheStatsResponse.from(cache.synchronous());
+    }
+
+    /**
+     * Snapshot of hit ratio, invalidations, change-stream staleness window
+     * and subscription state.
+     */
+    public ProductCacheStatsResponse stats() {
+        long remote = remoteInvalidations.sum();
+        return new ProductCacheStatsResponse(
+                cacheStats(),
+                localInvalidations.sum(),
+                remote,
+                remote == 0 ? 0 : stalenessMillis.sum() / (double) remote,
+                maxStalenessMillis.get(),
+                changeStream,
+                changeStreamResubscriptions.sum());
+    }
+}
@@ -0,0 +1,104 @@
+package com.github.adaken4.lets_play.service;
+
+import java.time.Instant;
+
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.mongodb.core.messaging.Message;
+import org.springframework.data.mongodb.core.messaging.MessageListener;
+
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.OperationType;
+
+/**
+ * Applies products change-stream events (from every replica) to local state.
+ */
+public class ProductChangeStreamListener implements MessageListener<ChangeStreamDocument<Document>, Document> {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductChangeStreamListener.class);
+
+    private final ProductCache productCache;
+    private final ProductAutocompleteIndex autocompleteIndex;
+
+    // Of the last event handled, to resume after it when the subscription is renewed
+    private volatile BsonDocument resumeToken;
+
+    public ProductChangeStreamListener(ProductCache productCache, ProductAutocompleteIndex autocompleteIndex) {
+        this.productCache = productCache;
+        this.autocompleteIndex = autocompleteIndex;
+    }
+
+    /**
+     * @return resume token of the last event handled, null before the first
+     */
+    public BsonDocument resumeToken() {
+        return resumeToken;
+    }
+
+    /**
+     * Drops the resume token once the oplog no longer holds it.
+     */
+    public void forgetResumeToken() {
+        resumeToken = null;
+    }
+
+    @Override
+    public void onMessage(Message<ChangeStreamDocument<Document>, Document> message) {
+        ChangeStreamDocument<Document> event = message.getRaw();
+        if (event == null) {
+            return;
+        }
+        try {
+            apply(event);
+        } finally {
+            resumeToken = event.getResumeToken();
+        }
+    }
+
+    private void apply(ChangeStreamDocument<Document> event) {
+        String id = documentId(event.getDocumentKey());
+        if (id == null) {
+            return;
+        }
+
+        updateAutocomplete(id, event);
+        if (event.getOperationType() == OperationType.INSERT) {
+            // New products cannot be cached yet
+            return;
+        }
+        Instant writeTime = event.getWallTime() != null
+                ? Instant.ofEpochMilli(event.getWallTime().getValue())
+                : null;
+        productCache.evictRemote(id, writeTime);
+        logger.debug("Product {} invalidated by {} event", id, event.getOperationType());
+    }
+
+    // Inserts, updates and replaces carry the current document (fullDocument: updateLookup)
+    private void updateAutocomplete(String id, ChangeStreamDocument<Document> event) {
+        switch (event.getOperationType()) {
+            case INSERT, UPDATE, REPLACE -> {
+                Document product = event.getFullDocument();
+                if (product != null) {
+                    autocompleteIndex.put(id, product.getString("name"));
+                } else {
+                    // Deleted again before the lookup ran
+                    autocompleteIndex.remove(id);
+                }
+            }
+            case DELETE -> autocompleteIndex.remove(id);
+            default -> {
+            }
+        }
+    }
+
+    private static String documentId(BsonDocument documentKey) {
+        if (documentKey == null) {
+            return null;
+        }
+        BsonValue id = documentKey.get("_id");
+        return id != null && id.isString() ? id.asString().getValue() : null;
+    }
+}
@@ -0,0 +1,147 @@
+package com.github.adaken4.lets_play.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.mongodb.core.messaging.ChangeStreamRequest;
+import org.springframework.data.mongodb.core.messaging.ChangeStreamRequest.ChangeStreamRequestBuilder;
+import org.springframework.data.mongodb.core.messaging.MessageListenerContainer;
+import org.springframework.data.mongodb.core.messaging.Subscription;
+import org.springframework.util.ErrorHandler;
+
+import com.github.adaken4.lets_play.dto.ProductCacheStatsResponse.ChangeStreamState;
+import com.mongodb.MongoException;
+import com.mongodb.client.model.changestream.FullDocument;
+
+/**
+ * Keeps the products change-stream subscription alive. Spring Data ends a
+ * subscription on its first cursor error (primary step-down, network blip)
+ * and only reports it to the error handler; this handler subscribes again
+ * after a back-off, resuming after the last event handled so none is
+ * missed, and reports the state in the product cache stats.
+ *
+ * If the oplog no longer holds the resume point, the subscription starts
+ * over from the current time and the near-cache is cleared, since the
+ * invalidations in between are lost.
+ */
+public class ProductChangeSubscription implements ErrorHandler {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductChangeSubscription.class);
+
+    private static final Duration MIN_BACKOFF = Duration.ofSeconds(1);
+    private static final Duration MAX_BACKOFF = Duration.ofSeconds(30);
+
+    // ChangeStreamHistoryLost: the resume point has rolled off the oplog
+    private static final int HISTORY_LOST = 286;
+
+    private final MessageListenerContainer container;
+    private final ProductChangeStreamListener listener;
+    private final ProductCache productCache;
+
+    // Held while registering, so the handler never sees a half-registered subscription
+    private final ReentrantLock lock = new ReentrantLock();
+    private Subscription current;
+    // Where a renewed subscription starts if no event has been handled yet
+    private Instant startedAt;
+    private Duration backoff = MIN_BACKOFF;
+    // Resume token at the previous failure; events since then restart the back-off
+    private BsonDocument failedAt;
+
+    public ProductChangeSubscription(MessageListenerContainer container, ProductChangeStreamListener listener,
+            ProductCache productCache) {
+        this.container = container;
+        this.listener = listener;
+        this.productCache = productCache;
+    }
+
+    /**
+     * Registers the subscription; the container opens the cursor once it runs.
+     */
+    public void subscribe() {
+        lock.lock();
+        try {
+            if (startedAt == null) {
+                startedAt = Instant.now();
+            }
+            current = container.register(request(), Document.class, this);
+            productCache.changeStreamState(ChangeStreamState.ACTIVE);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private ChangeStreamRequest<Document> request() {
+        ChangeStreamRequestBuilder<Document> builder = ChangeStreamRequest.builder(listener)
+                .collection("products")
+                // Autocomplete needs the current name after partial updates
+                .fullDocumentLookup(FullDocument.UPDATE_LOOKUP);
+        BsonDocument resumeToken = listener.resumeToken();
+        if (resumeToken != null) {
+            builder.resumeAfter(resumeToken);
+        } else {
+            builder.resumeAt(startedAt);
+        }
+        return builder.build();
+    }
+
+    @Override
+    public void handleError(Throwable error) {
+        Subscription failed;
+        lock.lock();
+        try {
+            failed = current;
+        } finally {
+            lock.unlock();
+        }
+        if (failed != null && failed.isActive()) {
+            // Thrown by the listener for one event; the cursor is still open
+            logger.error("Failed to apply a products change-stream event", error);
+            return;
+        }
+        if (!container.isRunning()) {
+            return;
+        }
+        productCache.changeStreamState(ChangeStreamState.RESUBSCRIBING);
+        BsonDocument resumeToken = listener.resumeToken();
+        if (resumeToken == null || !resumeToken.equals(failedAt)) {
+            backoff = MIN_BACKOFF;
+        }
+        failedAt = resumeToken;
+        logger.warn("Products change stream failed, resubscribing in {}", backoff, error);
+        try {
+            Thread.sleep(backoff);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        Duration doubled = backoff.multipliedBy(2);
+        backoff = doubled.compareTo(MAX_BACKOFF) < 0 ? doubled : MAX_BACKOFF;
+        if (historyLost(error)) {
+            logger.warn("Products change stream cannot resume, clearing the product cache and starting over");
+            listener.forgetResumeToken();
+            startedAt = Instant.now();
+            productCache.evictAll();
+        }
+        if (failed != null) {
+            container.remove(failed);
+        }
+        if (container.isRunning()) {
+            subscribe();
+            productCache.changeStreamResubscribed();
+        }
+    }
+
+    private static boolean historyLost(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof MongoException mongo && mongo.getCode() == HISTORY_LOST) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
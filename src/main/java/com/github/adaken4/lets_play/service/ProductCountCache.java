@@ -0,0 +1,42 @@
+package com.github.adaken4.lets_play.service;
+
+import java.time.Duration;
+import java.util.concurrent.Executor;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.adaken4.lets_play.repository.ProductRepository;
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * Approximate size of the products collection for count=estimated listings.
+ * Read from collection metadata (estimatedDocumentCount) and refreshed in the
+ * background on the application task executor, so listings never wait on a
+ * count after the first one.
+ */
+@Component
+public class ProductCountCache {
+
+    private static final String KEY = "products";
+
+    private final AsyncLoadingCache<String, Long> counts;
+    private final ProductRepository productRepository;
+
+    public ProductCountCache(ProductRepository productRepository,
+            @Qualifier("applicationTaskExecutor") Executor executor,
+            @Value("${app.products.estimated-count.refresh}") Duration refresh) {
+        this.productRepository = productRepository;
+        this.counts = Caffeine.newBuilder()
+                .maximumSize(1)
+                .refreshAfterWrite(refresh)
+                .executor(executor)
+                .buildAsync(key -> productRepository.estimatedCount());
+    }
+
+    public long get() {
+        return CacheLoads.get(counts, KEY, key -> productRepository.estimatedCount());
+    }
+}
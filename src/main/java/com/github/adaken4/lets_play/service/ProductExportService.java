@@ -0,0 +1,109 @@
+package com.github.adaken4.lets_play.service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.github.adaken4.lets_play.dto.ExportFormat;
+import com.github.adaken4.lets_play.dto.ProductResponse;
+import com.github.adaken4.lets_play.model.Product;
+import com.github.adaken4.lets_play.repository.ProductRepository;
+
+import tools.jackson.databind.ObjectMapper;
+
+/**
+ * Product catalog export: copies a database cursor to the output one row at
+ * a time, so heap use depends on the batch size, not the catalog size.
+ */
+@Service
+public class ProductExportService {
+
+    private static final String CSV_HEADER = "id,name,description,price,userId,version";
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${app.products.export.batch-size}")
+    private int batchSize;
+
+    /**
+     * Writes every matching product as ProductResponse rows, flushing after
+     * each cursor batch so the client receives data while the export runs.
+     *
+     * @param format   NDJSON or CSV (with header row)
+     * @param ownerId  only products of this user, or null for all
+     * @param minPrice inclusive lower price bound, or null
+     * @param maxPrice inclusive upper price bound, or null
+     * @param out      destination, left open for the caller
+     * @return number of products written
+     * @throws IOException if writing fails (e.g. the client disconnected)
+     */
+    public long exportProducts(ExportFormat format, String ownerId, Double minPrice, Double maxPrice,
+            OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        if (format == ExportFormat.CSV) {
+            writer.write(CSV_HEADER);
+            writer.write('\n');
+        }
+
+        long count = 0;
+        try (Stream<Product> products = productRepository.streamFiltered(ownerId, minPrice, maxPrice, batchSize)) {
+            Iterator<Product> iterator = products.iterator();
+            while (iterator.hasNext()) {
+                ProductResponse product = ProductMapper.toResponse(iterator.next());
+                if (format == ExportFormat.CSV) {
+                    writeCsv(writer, product);
+                } else {
+                    writer.write(objectMapper.writeValueAsString(product));
+                }
+                writer.write('\n');
+
+                if (++count % batchSize == 0) {
+                    writer.flush();
+                }
+            }
+        }
+        writer.flush();
+        return count;
+    }
+
+    private void writeCsv(Writer writer, ProductResponse product) throws IOException {
+        writer.write(csv(product.id()));
+        writer.write(',');
+        writer.write(csv(product.name()));
+        writer.write(',');
+        writer.write(csv(product.description()));
+        writer.write(',');
+        writer.write(product.price() == null ? "" : product.price().toString());
+        writer.write(',');
+        writer.write(csv(product.userId()));
+        writer.write(',');
+        writer.write(product.version() == null ? "" : product.version().toString());
+    }
+
+    /**
+     * RFC 4180 field: quoted only when it contains a separator, quote or line break
+     */
+    private String csv(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0
+                && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return "\"" + value.replace("\"", "\"\"") + "\"";
+    }
+}
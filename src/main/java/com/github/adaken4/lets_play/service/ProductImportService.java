@@ -0,0 +1,251 @@
+package com.github.adaken4.lets_play.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.github.adaken4.lets_play.dto.ProductCreationRequest;
+import com.github.adaken4.lets_play.dto.ProductImportResult;
+import com.github.adaken4.lets_play.dto.ProductImportSummary;
+import com.github.adaken4.lets_play.exception.UserNotFoundException;
+import com.github.adaken4.lets_play.model.Product;
+import com.github.adaken4.lets_play.repository.ProductRepository;
+import com.github.adaken4.lets_play.repository.UserRepository;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import tools.jackson.core.JacksonException;
+import tools.jackson.core.JsonParser;
+import tools.jackson.core.JsonToken;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.ObjectMapper;
+
+/**
+ * Bulk product import: parses the body one item at a time, validates it like
+ * POST /api/products and inserts in fixed-size chunks, writing an NDJSON
+ * report as each chunk completes. At most one chunk is held in memory,
+ * whatever the payload size.
+ */
+@Service
+public class ProductImportService {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductAutocompleteIndex autocompleteIndex;
+
+    @Autowired
+    private Validator validator;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${app.products.import.chunk-size}")
+    private int chunkSize;
+
+    /**
+     * Ensures the importing user exists; checked once per import rather than
+     * once per product. Call before the report starts so a missing user is
+     * still a regular 404.
+     *
+     * @param userId
+     */
+    public void requireOwner(String userId) {
+        if (!userRepository.existsById(userId)) {
+            throw new UserNotFoundException(userId);
+        }
+    }
+
+    /**
+     * Imports products owned by userId.
+     *
+     * NDJSON bodies are read line by line, so a malformed line is reported and
+     * skipped. JSON array bodies are read element by element; a syntax error
+     * there ends the import, since the parser cannot resynchronize.
+     *
+     * Report lines ({@link ProductImportResult}) are in input order within each
+     * chunk; the last line is a {@link ProductImportSummary}.
+     *
+     * @param body      request body
+     * @param jsonArray true for a JSON array body, false for NDJSON
+     * @param userId    owner of every imported product
+     * @param report    NDJSON report destination
+     * @return totals, also written as the last report line
+     * @throws IOException if reading the body or writing the report fails
+     */
+    public ProductImportSummary importProducts(InputStream body, boolean jsonArray, String userId,
+            OutputStream report) throws IOException {
+        ImportBatch batch = new ImportBatch(userId, report);
+        if (jsonArray) {
+            readArray(body, batch);
+        } else {
+            readNdjson(body, batch);
+        }
+        batch.flush();
+
+        ProductImportSummary summary = new ProductImportSummary(batch.received, batch.created,
+                batch.received - batch.created);
+        writeLine(report, summary);
+        report.flush();
+        return summary;
+    }
+
+    private void readNdjson(InputStream body, ImportBatch batch) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        String text;
+        int line = 0;
+        while ((text = reader.readLine()) != null) {
+            line++;
+            if (text.isBlank()) {
+                continue;
+            }
+            try {
+                batch.add(line, objectMapper.readValue(text, ProductCreationRequest.class));
+            } catch (JacksonException e) {
+                batch.reject(line, "json", e.getOriginalMessage());
+            }
+        }
+    }
+
+    private void readArray(InputStream body, ImportBatch batch) throws IOException {
+        int line = 0;
+        try (JsonParser parser = objectMapper.createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                batch.reject(1, "json", "expected a JSON array or NDJSON (application/x-ndjson)");
+                return;
+            }
+            JsonToken token;
+            while ((token = parser.nextToken()) != JsonToken.END_ARRAY && token != null) {
+                line++;
+                // Materializes a single element only
+                JsonNode node = parser.readValueAsTree();
+                try {
+                    batch.add(line, objectMapper.treeToValue(node, ProductCreationRequest.class));
+                } catch (JacksonException e) {
+                    batch.reject(line, "json", e.getOriginalMessage());
+                }
+            }
+        } catch (JacksonException e) {
+            // Syntax error: the rest of the array cannot be located reliably
+            batch.reject(line + 1, "json", e.getOriginalMessage());
+        }
+    }
+
+    private void writeLine(OutputStream report, Object line) throws IOException {
+        report.write(objectMapper.writeValueAsBytes(line));
+        report.write('\n');
+    }
+
+    /**
+     * Accumulates up to chunkSize items, then inserts the valid ones with one
+     * bulk write and reports the whole chunk.
+     */
+    private class ImportBatch {
+
+        private final String userId;
+        private final OutputStream report;
+
+        private final List<Product> products = new ArrayList<>();
+        private final List<Integer> productLines = new ArrayList<>();
+        private final List<ProductImportResult> results = new ArrayList<>();
+
+        private long received;
+        private long created;
+
+        ImportBatch(String userId, OutputStream report) {
+            this.userId = userId;
+            this.report = report;
+        }
+
+        void add(int line, ProductCreationRequest request) throws IOException {
+            if (request == null) {
+                reject(line, "json", "expected a product object, got null");
+                return;
+            }
+            Set<ConstraintViolation<ProductCreationRequest>> violations = validator.validate(request);
+            if (!violations.isEmpty()) {
+                // Same field => message shape as GlobalExceptionHandler's validation errors
+                Map<String, String> errors = new LinkedHashMap<>();
+                violations.forEach(v -> errors.put(v.getPropertyPath().toString(), v.getMessage()));
+                reject(line, errors);
+                return;
+            }
+
+            Product product = ProductMapper.toEntity(request);
+            product.setId(UUID.randomUUID().toString());
+            product.setUserId(userId);
+            // Bulk writes bypass the save() path that initializes @Version
+            product.setVersion(0L);
+
+            received++;
+            products.add(product);
+            productLines.add(line);
+            flushIfFull();
+        }
+
+        void reject(int line, String field, String message) throws IOException {
+            reject(line, Map.of(field, message));
+        }
+
+        void reject(int line, Map<String, String> errors) throws IOException {
+            received++;
+            results.add(ProductImportResult.failed(line, errors));
+            flushIfFull();
+        }
+
+        private void flushIfFull() throws IOException {
+            if (products.size() + results.size() >= chunkSize) {
+                flush();
+            }
+        }
+
+        void flush() throws IOException {
+            if (!products.isEmpty()) {
+                Map<Integer, String> failures = productRepository.bulkInsert(products);
+                for (int i = 0; i < products.size(); i++) {
+                    Product product = products.get(i);
+                    String failure = failures.get(i);
+                    if (failure == null) {
+                        autocompleteIndex.put(product.getId(), product.getName());
+                        results.add(ProductImportResult.created(productLines.get(i), product.getId()));
+                    } else {
+                        results.add(ProductImportResult.failed(productLines.get(i), Map.of("insert", failure)));
+                    }
+                }
+                created += products.size() - failures.size();
+            }
+            if (results.isEmpty()) {
+                return;
+            }
+
+            results.sort(Comparator.comparingInt(ProductImportResult::line));
+            for (ProductImportResult result : results) {
+                writeLine(report, result);
+            }
+            // Push the chunk's report to the client before reading on
+            report.flush();
+
+            products.clear();
+            productLines.clear();
+            results.clear();
+        }
+    }
+}
@@ -21,7 +21,8 @@ public class ProductMapper {
             product.getName(),
             product.getDescription(),
             product.getPrice(),
-            product.getUserId() // Owner ID for frontend display/ownership info
+            product.getUserId(), // Owner ID for frontend display/ownership info
+            product.getVersion() // Concurrency token, also sent as the ETag
         );
     }
 
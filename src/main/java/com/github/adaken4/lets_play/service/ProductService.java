@@ -1,20 +1,34 @@
 package com.github.adaken4.lets_play.service;
 
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Function;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 
+import com.github.adaken4.lets_play.dto.CountMode;
+import com.github.adaken4.lets_play.dto.CursorPage;
+import com.github.adaken4.lets_play.dto.PagedResponse;
 import com.github.adaken4.lets_play.dto.ProductCreationRequest;
 import com.github.adaken4.lets_play.dto.ProductResponse;
+import com.github.adaken4.lets_play.dto.ProductSummary;
 import com.github.adaken4.lets_play.dto.ProductUpdateRequest;
 import com.github.adaken4.lets_play.exception.ForbiddenException;
+import com.github.adaken4.lets_play.exception.InvalidCursorException;
+import com.github.adaken4.lets_play.exception.PreconditionFailedException;
 import com.github.adaken4.lets_play.exception.ProductNotFoundException;
 import com.github.adaken4.lets_play.exception.UserNotFoundException;
 import com.github.adaken4.lets_play.model.Product;
+import com.github.adaken4.lets_play.repository.ProductFilter;
 import com.github.adaken4.lets_play.repository.ProductRepository;
 import com.github.adaken4.lets_play.repository.UserRepository;
 
@@ -27,6 +41,27 @@ public class ProductService {
     @Autowired
     private ProductRepository productRepository;
 
+    @Autowired
+    private ProductCountCache productCountCache;
+
+    @Autowired
+    private ProductCache productCache;
+
+    @Autowired
+    private ProductAutocompleteIndex autocompleteIndex;
+
+    // Keyset-sortable fields, each backed by a {field: 1, _id: 1} index
+    private static final Map<String, Function<Product, Object>> SORT_KEYS = Map.of(
+            "id", Product::getId,
+            "name", Product::getName,
+            "price", Product::getPrice);
+
+    // Owner listings are in _id order only (userId_id index)
+    private static final Set<String> OWNER_SORT_KEYS = Set.of("id");
+
+    // Search orders by relevance (text) or price, backed by price_id / userId_price_id
+    private static final Set<String> SEARCH_SORT_KEYS = Set.of("price");
+
     /**
      * Retrieves paginated list of all products
      * 
@@ -38,6 +73,141 @@ public class ProductService {
                 .map(ProductMapper::toResponse);
     }
 
+    /**
+     * Retrieves an offset page with the requested counting strategy.
+     * NONE skips the count entirely; ESTIMATED reports the cached collection size
+     * and flags it as approximate; EXACT behaves like getAllProducts.
+     * 
+     * @param pageable
+     * @param countMode
+     * @return PagedResponse of ProductResponse objects
+     */
+    public PagedResponse<ProductResponse> getProductsPage(Pageable pageable, CountMode countMode) {
+        if (countMode == CountMode.EXACT) {
+            Page<ProductResponse> page = getAllProducts(pageable);
+            return new PagedResponse<>(page.getContent(), page.getNumber(), page.getSize(), page.hasNext(),
+                    page.getTotalElements(), false);
+        }
+
+        Slice<ProductResponse> slice = productRepository.findAllBy(pageable).map(ProductMapper::toResponse);
+        Long total = countMode == CountMode.ESTIMATED ? productCountCache.get() : null;
+        return new PagedResponse<>(slice.getContent(), slice.getNumber(), slice.getSize(), slice.hasNext(),
+                total, total != null);
+    }
+
+    /**
+     * Retrieves one keyset page of products: no skip and no count query.
+     * An empty cursor starts a new listing using the Pageable's sort and size.
+     * 
+     * @param cursor   opaque cursor from the previous page, or empty
+     * @param pageable page size and (for the first page) sort
+     * @return CursorPage of ProductResponse objects
+     */
+    public CursorPage<ProductResponse> getProductsByCursor(String cursor, Pageable pageable) {
+        KeysetCursor position = cursor.isBlank()
+                ? KeysetCursor.start(pageable.getSort(), SORT_KEYS.keySet())
+                : KeysetCursor.decode(cursor, SORT_KEYS.keySet());
+        int size = pageable.getPageSize();
+
+        List<Product> products = productRepository.findAfter(position.field(), position.direction(),
+                position.value(), position.id(), size + 1);
+        return position.toPage(products, size, SORT_KEYS.get(position.field()), Product::getId,
+                ProductMapper::toResponse);
+    }
+
+    /**
+     * Retrieves one keyset page of a user's products in _id order, projected
+     * to ProductSummary. Each page is a bounded range scan of the userId_id index.
+     * 
+     * @param userId   owner
+     * @param cursor   opaque cursor from the previous page, or empty
+     * @param pageable page size
+     * @return CursorPage of ProductSummary objects
+     */
+    public CursorPage<ProductSummary> getProductsByOwner(String userId, String cursor, Pageable pageable) {
+        KeysetCursor position = cursor.isBlank()
+                ? KeysetCursor.start(Sort.unsorted(), OWNER_SORT_KEYS)
+                : KeysetCursor.decode(cursor, OWNER_SORT_KEYS);
+        if (!position.direction().isAscending()) {
+            throw new InvalidCursorException("malformed");
+        }
+        int size = pageable.getPageSize();
+        Limit limit = Limit.of(size + 1);
+
+        List<ProductSummary> products = position.id() == null
+                ? productRepository.findByUserIdOrderByIdAsc(userId, limit)
+                : productRepository.findByUserIdAndIdGreaterThanOrderByIdAsc(userId, position.id(), limit);
+        return position.toPage(products, size, ProductSummary::id, ProductSummary::id, Function.identity());
+    }
+
+    /**
+     * Same as getProductsByOwner for an arbitrary user, 404 if the user does not exist
+     * 
+     * @param userId   owner
+     * @param cursor   opaque cursor from the previous page, or empty
+     * @param pageable page size
+     * @return CursorPage of ProductSummary objects
+     */
+    public CursorPage<ProductSummary> getProductsOfUser(String userId, String cursor, Pageable pageable) {
+        if (!userRepository.existsById(userId)) {
+            throw new UserNotFoundException(userId);
+        }
+        return getProductsByOwner(userId, cursor, pageable);
+    }
+
+    /**
+     * Searches products by text, owner and price range, one offset page at a time
+     * without a count query. Text searches are ranked by relevance, otherwise
+     * results are in price order (?sort=price,desc for descending).
+     * 
+     * @param filter   search filters, all optional
+     * @param pageable page, size and price sort direction
+     * @return PagedResponse of ProductResponse objects, without a total
+     */
+    public PagedResponse<ProductResponse> searchProducts(ProductFilter filter, Pageable pageable) {
+        int size = pageable.getPageSize();
+        List<Product> products = filter.hasText()
+                ? productRepository.searchByRelevance(filter, pageable.getOffset(), size + 1)
+                : productRepository.searchByPrice(filter, priceOrder(pageable).direction(), pageable.getOffset(),
+                        size + 1);
+
+        boolean hasNext = products.size() > size;
+        List<ProductResponse> content = (hasNext ? products.subList(0, size) : products).stream()
+                .map(ProductMapper::toResponse)
+                .toList();
+        return new PagedResponse<>(content, pageable.getPageNumber(), size, hasNext, null, false);
+    }
+
+    /**
+     * Searches products with keyset paging in price/_id order; text terms,
+     * if any, filter without ranking.
+     * 
+     * @param filter   search filters, all optional
+     * @param cursor   opaque cursor from the previous page, or empty
+     * @param pageable page size and (for the first page) price sort direction
+     * @return CursorPage of ProductResponse objects
+     */
+    public CursorPage<ProductResponse> searchProductsByCursor(ProductFilter filter, String cursor,
+            Pageable pageable) {
+        KeysetCursor position = cursor.isBlank()
+                ? priceOrder(pageable)
+                : KeysetCursor.decode(cursor, SEARCH_SORT_KEYS);
+        int size = pageable.getPageSize();
+
+        List<Product> products = productRepository.searchAfter(filter, position.direction(), position.value(),
+                position.id(), size + 1);
+        return position.toPage(products, size, Product::getPrice, Product::getId, ProductMapper::toResponse);
+    }
+
+    /**
+     * Helper: price order requested by the Pageable, ascending by default
+     * (shared with ReactiveProductService)
+     */
+    static KeysetCursor priceOrder(Pageable pageable) {
+        Sort sort = pageable.getSort().isSorted() ? pageable.getSort() : Sort.by("price");
+        return KeysetCursor.start(sort, SEARCH_SORT_KEYS);
+    }
+
     /**
      * Retrieves a single product by its ID
      * 
@@ -45,7 +215,8 @@ public class ProductService {
      * @return
      */
     public Optional<ProductResponse> getProductById(String id) {
-        return productRepository.findById(id).map(ProductMapper::toResponse);
+        // Served from the near-cache, falling back to the database
+        return productCache.get(id, key -> productRepository.findById(key).map(ProductMapper::toResponse));
     }
 
     /**
@@ -70,60 +241,85 @@ public class ProductService {
         product.setUserId(userId);
 
         // Persist and return created product
-        return ProductMapper.toResponse(productRepository.save(product));
+        Product saved = productRepository.save(product);
+        autocompleteIndex.put(saved.getId(), saved.getName());
+        return ProductMapper.toResponse(saved);
     }
 
     /**
-     * Partially updates a product if user is ADMIN or the product's owner
+     * Partially updates a product if user is ADMIN or the product's owner.
+     * Ownership, If-Match version and the partial $set are one atomic
+     * findAndModify, so there is no read-modify-write window.
      * 
      * @param productId
      * @param request
      * @param userId
      * @param userRoles
+     * @param expectedVersion version from If-Match, or null to skip the check
      * @return Updated ProductResponse object
      */
     public ProductResponse updateProduct(String productId, ProductUpdateRequest request, String userId,
-            String userRoles) {
-        Product product = findAndAuthorizeProduct(productId, userId, userRoles);
-
+            String userRoles, Long expectedVersion) {
         // Only non-null fields from request are applied
-        ProductMapper.partialUpdate(product, request);
-        return ProductMapper.toResponse(productRepository.save(product));
+        Product changes = new Product();
+        ProductMapper.partialUpdate(changes, request);
+
+        Product updated = productRepository
+                .updateIfPermitted(productId, ownerFilter(userId, userRoles), expectedVersion, changes)
+                .orElseThrow(() -> explainRejection(productId, userId, userRoles));
+        productCache.evict(productId);
+        autocompleteIndex.put(productId, updated.getName());
+        return ProductMapper.toResponse(updated);
     }
 
     /**
-     * Deletes a product if user is ADMIN or the product's owner
+     * Deletes a product if user is ADMIN or the product's owner,
+     * as a single conditional delete
      * 
      * @param productId
      * @param userId
      * @param userRoles
+     * @param expectedVersion version from If-Match, or null to skip the check
      * @return void
      */
-    public void deleteProduct(String productId, String userId, String userRoles) {
-        // Check existence first -> Returns 404 if missing
-        Product product = findAndAuthorizeProduct(productId, userId, userRoles);
-        productRepository.delete(product);
+    public void deleteProduct(String productId, String userId, String userRoles, Long expectedVersion) {
+        if (!productRepository.deleteIfPermitted(productId, ownerFilter(userId, userRoles), expectedVersion)) {
+            throw explainRejection(productId, userId, userRoles);
+        }
+        productCache.evict(productId);
+        autocompleteIndex.remove(productId);
     }
 
     /**
-     * Private helper to enforce "Find then Authorize" logic.
-     * Ensures 404 is thrown if missing, and 403 if unauthorized
+     * Private helper: admins may mutate any product (no owner filter),
+     * everyone else only their own
      */
-    private Product findAndAuthorizeProduct(String productId, String userId, String userRoles) {
+    private String ownerFilter(String userId, String userRoles) {
+        return userRoles.contains("ROLE_ADMIN") ? null : userId;
+    }
+
+    /**
+     * Private helper to keep "Find then Authorize" semantics on the failure path only.
+     * Called after a conditional write matched nothing: 404 if missing,
+     * 403 if unauthorized, otherwise 412 because the If-Match version is outdated
+     */
+    private RuntimeException explainRejection(String productId, String userId, String userRoles) {
         // Product existence check
-        Product product = productRepository.findById(productId)
-                .orElseThrow(() -> new ProductNotFoundException(productId));
+        Optional<Product> product = productRepository.findById(productId);
+        if (product.isEmpty()) {
+            return new ProductNotFoundException(productId);
+        }
 
         // Authorization check
         boolean isAdmin = userRoles.contains("ROLE_ADMIN");
-        boolean isOwner = product.getUserId().equals(userId);
-        
+        boolean isOwner = product.get().getUserId().equals(userId);
+
         // Enforce RBAC - admin OR owner only
         if (!isAdmin && !isOwner) {
-            throw new ForbiddenException("You are not authorized to manage this product.");
+            return new ForbiddenException("You are not authorized to manage this product.");
         }
 
-        return product; // Authorized for mutation
+        return new PreconditionFailedException("product " + productId + " has been modified");
     }
 
 }
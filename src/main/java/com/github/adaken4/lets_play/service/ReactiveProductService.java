@@ -0,0 +1,70 @@
+package com.github.adaken4.lets_play.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+
+import com.github.adaken4.lets_play.dto.ProductResponse;
+import com.github.adaken4.lets_play.model.Product;
+import com.github.adaken4.lets_play.repository.ProductFilter;
+import com.github.adaken4.lets_play.repository.ReactiveProductRepository;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Non-blocking product reads (/api/reactive/products): same queries and
+ * ProductResponse mapping as ProductService, on the reactive MongoDB driver,
+ * so no request thread waits on the database.
+ *
+ * Reads go straight to MongoDB; the product near-cache belongs to the
+ * blocking path and is not consulted.
+ */
+@Service
+// Needs the reactive MongoDB driver, which the in-memory profile does not configure
+@Profile("!inmemory")
+public class ReactiveProductService {
+
+    @Autowired
+    private ReactiveProductRepository reactiveProductRepository;
+
+    /**
+     * Streams one offset page of products, without a count.
+     *
+     * @param pageable page, size and sort
+     * @return ProductResponse stream
+     */
+    public Flux<ProductResponse> getProducts(Pageable pageable) {
+        return reactiveProductRepository.findAllBy(pageable)
+                .map(ProductMapper::toResponse);
+    }
+
+    /**
+     * Retrieves a single product by its ID
+     *
+     * @param id
+     * @return ProductResponse, or empty if not found
+     */
+    public Mono<ProductResponse> getProductById(String id) {
+        return reactiveProductRepository.findById(id)
+                .map(ProductMapper::toResponse);
+    }
+
+    /**
+     * Streams one page of search results, ranked by relevance for text
+     * searches and in price order otherwise, as ProductService.searchProducts.
+     *
+     * @param filter   search filters, all optional
+     * @param pageable page, size and price sort direction
+     * @return ProductResponse stream
+     */
+    public Flux<ProductResponse> searchProducts(ProductFilter filter, Pageable pageable) {
+        Flux<Product> products = filter.hasText()
+                ? reactiveProductRepository.searchByRelevance(filter, pageable.getOffset(), pageable.getPageSize())
+                : reactiveProductRepository.searchByPrice(filter,
+                        ProductService.priceOrder(pageable).direction(), pageable.getOffset(),
+                        pageable.getPageSize());
+        return products.map(ProductMapper::toResponse);
+    }
+}
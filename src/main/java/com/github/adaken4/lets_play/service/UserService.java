@@ -3,18 +3,24 @@ package com.github.adaken4.lets_play.service;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Page;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
+import com.github.adaken4.lets_play.dto.CursorPage;
 import com.github.adaken4.lets_play.dto.UserCreationRequest;
 import com.github.adaken4.lets_play.dto.UserResponse;
 import com.github.adaken4.lets_play.dto.UserUpdateRequest;
 import com.github.adaken4.lets_play.exception.EmailAlreadyExistsException;
 import com.github.adaken4.lets_play.model.User;
 import com.github.adaken4.lets_play.repository.UserRepository;
+import com.github.adaken4.lets_play.security.PrincipalCache;
+import com.github.adaken4.lets_play.security.TokenVersionCache;
 
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Function;
 
 @Service
 public class UserService {
@@ -22,8 +28,23 @@ public class UserService {
     @Autowired
     private UserRepository userRepository;
 
+    // Keyset-sortable fields, each backed by an index ending in _id
+    private static final Map<String, Function<User, Object>> SORT_KEYS = Map.of(
+            "id", User::getId,
+            "name", User::getName,
+            "email", User::getEmail);
+
+    @Autowired
+    private PasswordEncoder encoder;
+
+    @Autowired
+    private PrincipalCache principalCache;
+
+    @Autowired
+    private TokenVersionCache tokenVersionCache;
+
     @Autowired
-    private BCryptPasswordEncoder encoder;
+    private CascadeDeleteService cascadeDeleteService;
 
     /**
      * Creates a user after email uniqueness check.
@@ -47,6 +68,20 @@ public class UserService {
                 .map(this::mapToResponse);
     }
 
+    /**
+     * Keyset page of users - no skip and no count query
+     */
+    public CursorPage<UserResponse> findUsersByCursor(String cursor, Pageable pageable) {
+        KeysetCursor position = cursor.isBlank()
+                ? KeysetCursor.start(pageable.getSort(), SORT_KEYS.keySet())
+                : KeysetCursor.decode(cursor, SORT_KEYS.keySet());
+        int size = pageable.getPageSize();
+
+        List<User> users = userRepository.findAfter(position.field(), position.direction(),
+                position.value(), position.id(), size + 1);
+        return position.toPage(users, size, SORT_KEYS.get(position.field()), User::getId, this::mapToResponse);
+    }
+
     /**
      * Blocking findById - throws on missing user (usecase contract)
      */
@@ -63,6 +98,7 @@ public class UserService {
     public UserResponse patchUser(String userId, UserUpdateRequest updates) {
         User existing = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("User not found"));
+        String previousEmail = existing.getEmail();
 
         // Partial update pattern - null fields = no change
         if (updates.name() != null)
@@ -72,8 +108,17 @@ public class UserService {
         if (updates.password() != null) {
             existing.setPassword(encoder.encode(updates.password()));
         }
+        // Credential change revokes previously issued stateless tokens
+        if (updates.email() != null || updates.password() != null) {
+            existing.setTokenVersion(existing.getTokenVersion() + 1);
+        }
 
-        return mapToResponse(userRepository.save(existing));
+        User saved = userRepository.save(existing);
+        // Evict after the write so a concurrent request cannot re-cache the stale principal
+        principalCache.invalidate(previousEmail);
+        principalCache.invalidate(saved.getEmail());
+        tokenVersionCache.update(saved.getId(), saved.getTokenVersion());
+        return mapToResponse(saved);
     }
 
     /**
@@ -84,13 +129,16 @@ public class UserService {
     }
 
     /**
-     * existsById() short-circuits - avoids full entity load for simple delete
+     * Loads the user so its cached principal (keyed by email) can be evicted
      */
     public void deleteById(String id) {
-        if (!userRepository.existsById(id)) {
-            throw new RuntimeException("User not found" + id);
-        }
+        User existing = userRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("User not found" + id));
         userRepository.deleteById(id);
+        principalCache.invalidate(existing.getEmail());
+        tokenVersionCache.markDeleted(id);
+        // Owned products are removed in the background, in rate-limited batches
+        cascadeDeleteService.enqueue(id);
     }
 
     /**
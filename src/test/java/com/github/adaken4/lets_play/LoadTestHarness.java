@@ -0,0 +1,581 @@
+package com.github.adaken4.lets_play;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import com.github.adaken4.lets_play.model.Product;
+import com.github.adaken4.lets_play.model.User;
+import com.github.adaken4.lets_play.repository.ProductRepository;
+import com.github.adaken4.lets_play.repository.UserRepository;
+import com.github.adaken4.lets_play.security.JwtUtils;
+
+import tools.jackson.databind.SerializationFeature;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Open-model load test of the whole application without a database: the
+ * application is started on the inmemory profile (map-backed repositories
+ * with a simulated round trip per call, see repository.inmemory) and driven
+ * over HTTP with a weighted mix of scenarios:
+ *
+ * login  POST /api/auth/login
+ * browse GET /api/products?page=&lt;0..49&gt;&amp;size=20
+ * get    GET /api/products/{id} (random catalog product)
+ * create POST /api/products
+ * patch  PATCH /api/products/{id} (a product of the calling user)
+ * delete DELETE /api/products/{id} (a product of the calling user)
+ *
+ * Requests arrive at a fixed average rate, exponentially spaced (Poisson
+ * arrivals, or -Dload.arrivals=uniform), each on its own virtual thread
+ * whether or not earlier requests have completed: a slow server builds a
+ * queue instead of slowing the load down. Latency is measured from the
+ * scheduled arrival, so that queueing shows in the numbers.
+ *
+ * The JSON report (target/loadtest/&lt;label&gt;.json) holds per scenario the
+ * throughput, errors by status, p50/p90/p99/p99.9/max latency and a
+ * histogram with fixed bucket bounds, so the reports of two builds diff line
+ * by line. With -Dload.baseline=&lt;report&gt; the change against that run is
+ * printed as well. Run from the project root:
+ *
+ * mvn -P loadtest test -Dload.rate=300 -Dload.label=after \
+ *   -Dload.baseline=target/loadtest/before.json
+ *
+ * or with java and the test classpath, where arguments are passed to the
+ * application (e.g. --spring.threads.virtual.enabled=true):
+ *
+ * java -cp target/classes:target/test-classes:&lt;test classpath&gt; -Dload.rate=300 \
+ *   com.github.adaken4.lets_play.LoadTestHarness
+ */
+public class LoadTestHarness {
+
+    private static final double RATE = Double.parseDouble(System.getProperty("load.rate", "200"));
+    private static final String ARRIVALS = System.getProperty("load.arrivals", "poisson");
+    private static final Duration WARMUP = Duration.parse("PT" + System.getProperty("load.warmup", "10s"));
+    private static final Duration DURATION = Duration.parse("PT" + System.getProperty("load.duration", "60s"));
+    private static final String MIX = System.getProperty("load.mix",
+            "login:5,browse:35,get:40,create:8,patch:8,delete:4");
+    private static final String LATENCY = System.getProperty("load.latency", "2ms");
+    private static final String LATENCY_JITTER = System.getProperty("load.latency-jitter", "1ms");
+    private static final int USERS = Integer.getInteger("load.users", 100);
+    private static final int PRODUCTS = Integer.getInteger("load.products", 10_000);
+    // Products seeded per user for patch and delete
+    private static final int OWNED_PRODUCTS = Integer.getInteger("load.owned-products", 20);
+    // Arrivals beyond this many outstanding requests are dropped (and reported) rather than sent
+    private static final int MAX_IN_FLIGHT = Integer.getInteger("load.max-in-flight", 10_000);
+    private static final String LABEL = System.getProperty("load.label", "latest");
+    private static final Path REPORT_DIR = Path.of(System.getProperty("load.report-dir", "target/loadtest"));
+    private static final String BASELINE = System.getProperty("load.baseline", "");
+
+    private static final String PASSWORD = "load-test-password";
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+    // Histogram bucket upper bounds in ms, fixed so that reports of different runs line up
+    private static final double[] BUCKETS_MS = { 0.25, 0.5, 1, 2, 4, 8, 16, 32, 64, 128, 256, 512, 1024, 2048,
+            4096, 8192, 16384 };
+
+    private static final JsonMapper JSON = JsonMapper.builder()
+            .enable(SerializationFeature.INDENT_OUTPUT)
+            .build();
+
+    record Report(String label, String startedAt, Config config, Totals totals, List<ScenarioReport> scenarios) {
+    }
+
+    record Config(double rate, String arrivals, long warmupSeconds, long durationSeconds, String latency,
+            String latencyJitter, int users, int products, Map<String, Integer> mix, boolean virtualThreads,
+            int cpus, String java) {
+    }
+
+    record Totals(long requests, long errors, double errorRate, double throughput) {
+    }
+
+    record ScenarioReport(String name, long requests, long skipped, Map<String, Long> errors, double errorRate,
+            double throughput, Latency latencyMs, List<Bucket> histogram) {
+    }
+
+    record Latency(double p50, double p90, double p99, double p999, double max, double mean) {
+    }
+
+    /**
+     * @param le    bucket upper bound in ms, inclusive ("+Inf" for the last)
+     * @param count requests in the bucket (not cumulative)
+     */
+    record Bucket(String le, long count) {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, Integer> mix = parseMix(MIX);
+        Instant startedAt = Instant.now();
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(LetsPlayApplication.class)
+                .profiles("inmemory")
+                // Defaults for the placeholders otherwise taken from .env; arguments override everything
+                .properties(
+                        "INMEMORY_LATENCY=" + LATENCY,
+                        "INMEMORY_LATENCY_JITTER=" + LATENCY_JITTER,
+                        "JWT_SECRET=" + randomSecret(),
+                        "SYSTEM_ADMIN_EMAIL=admin@load-test.local",
+                        "SYSTEM_ADMIN_PASSWORD=" + PASSWORD,
+                        "server.port=0",
+                        // Every simulated client shares one address
+                        "RATE_LIMIT_ENABLED=false",
+                        "PRODUCTS_AUTOCOMPLETE_ENABLED=false")
+                .run(args);
+                ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor();
+                HttpClient http = HttpClient.newBuilder()
+                        .version(HttpClient.Version.HTTP_1_1)
+                        .executor(clients)
+                        .connectTimeout(Duration.ofSeconds(10))
+                        .build()) {
+            String base = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+            Workload workload = Workload.seed(context, http, base);
+
+            System.out.printf("Warming up for %s at %.0f req/s%n", WARMUP, RATE);
+            drive(clients, workload, mix, WARMUP);
+            System.out.printf("Measuring for %s at %.0f req/s%n", DURATION, RATE);
+            Measurement measurement = drive(clients, workload, mix, DURATION);
+
+            Config config = new Config(RATE, ARRIVALS, WARMUP.toSeconds(), DURATION.toSeconds(), LATENCY,
+                    LATENCY_JITTER, USERS, PRODUCTS, mix,
+                    context.getEnvironment().getProperty("spring.threads.virtual.enabled", Boolean.class, false),
+                    Runtime.getRuntime().availableProcessors(), Runtime.version().toString());
+            Report report = measurement.report(LABEL, startedAt, config);
+
+            Files.createDirectories(REPORT_DIR);
+            Path file = REPORT_DIR.resolve(LABEL + ".json");
+            JSON.writeValue(file.toFile(), report);
+
+            print(report);
+            if (!BASELINE.isBlank()) {
+                compare(JSON.readValue(Path.of(BASELINE).toFile(), Report.class), report);
+            }
+            System.out.println("Report written to " + file);
+        }
+    }
+
+    /**
+     * Sends requests at RATE for the given time, each on its own virtual
+     * thread (open model), then waits for the outstanding ones.
+     */
+    private static Measurement drive(ExecutorService clients, Workload workload, Map<String, Integer> mix,
+            Duration duration) throws InterruptedException {
+        Measurement measurement = new Measurement(mix.keySet());
+        Semaphore inFlight = new Semaphore(MAX_IN_FLIGHT);
+        SplittableRandom random = new SplittableRandom(42);
+        int totalWeight = mix.values().stream().mapToInt(Integer::intValue).sum();
+
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+        long next = start;
+        while (next < end) {
+            long wait = next - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+                continue;
+            }
+            long arrival = next;
+            String scenario = pick(mix, random.nextInt(totalWeight));
+            SplittableRandom requestRandom = random.split();
+            if (inFlight.tryAcquire()) {
+                clients.execute(() -> {
+                    try {
+                        measurement.record(scenario, arrival, workload, requestRandom);
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            } else {
+                measurement.samples.get(scenario).error("dropped");
+            }
+            next += interArrivalNanos(random);
+        }
+
+        inFlight.acquire(MAX_IN_FLIGHT);
+        inFlight.release(MAX_IN_FLIGHT);
+        measurement.seconds = (System.nanoTime() - start) / 1e9;
+        return measurement;
+    }
+
+    private static long interArrivalNanos(SplittableRandom random) {
+        double mean = 1e9 / RATE;
+        return "uniform".equals(ARRIVALS)
+                ? (long) mean
+                : (long) (-Math.log(1 - random.nextDouble()) * mean);
+    }
+
+    private static String pick(Map<String, Integer> mix, int point) {
+        for (Map.Entry<String, Integer> entry : mix.entrySet()) {
+            point -= entry.getValue();
+            if (point < 0) {
+                return entry.getKey();
+            }
+        }
+        throw new IllegalStateException("Empty scenario mix");
+    }
+
+    private static Map<String, Integer> parseMix(String mix) {
+        Map<String, Integer> weights = new LinkedHashMap<>();
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.trim().split(":");
+            if (!Workload.SCENARIOS.contains(parts[0]) || parts.length != 2) {
+                throw new IllegalArgumentException("Bad load.mix entry '" + entry + "', expected one of "
+                        + Workload.SCENARIOS + " as name:weight");
+            }
+            int weight = Integer.parseInt(parts[1]);
+            if (weight > 0) {
+                weights.put(parts[0], weight);
+            }
+        }
+        return weights;
+    }
+
+    private static void print(Report report) {
+        System.out.printf("%n%s: %.0f req/s offered (%s), %s latency per repository call, %d s%n",
+                report.label(), report.config().rate(), report.config().arrivals(), report.config().latency(),
+                report.config().durationSeconds());
+        System.out.printf("%-8s %9s %9s %9s %9s %9s %8s%n",
+                "test", "req/s", "p50 ms", "p99 ms", "p99.9 ms", "max ms", "errors");
+        for (ScenarioReport scenario : report.scenarios()) {
+            System.out.printf("%-8s %9.1f %9.2f %9.2f %9.2f %9.2f %7.2f%%%n",
+                    scenario.name(), scenario.throughput(), scenario.latencyMs().p50(), scenario.latencyMs().p99(),
+                    scenario.latencyMs().p999(), scenario.latencyMs().max(), 100 * scenario.errorRate());
+        }
+        System.out.printf("%-8s %9.1f %49.2f%%%n", "total", report.totals().throughput(),
+                100 * report.totals().errorRate());
+    }
+
+    private static void compare(Report baseline, Report report) {
+        System.out.printf("%nChange against %s:%n", baseline.label());
+        System.out.printf("%-8s %9s %9s %9s %9s %8s%n", "test", "req/s", "p50", "p99", "p99.9", "errors");
+        for (ScenarioReport after : report.scenarios()) {
+            baseline.scenarios().stream()
+                    .filter(before -> before.name().equals(after.name()))
+                    .findFirst()
+                    .ifPresent(before -> System.out.printf("%-8s %9s %9s %9s %9s %+7.2fpp%n",
+                            after.name(),
+                            change(before.throughput(), after.throughput()),
+                            change(before.latencyMs().p50(), after.latencyMs().p50()),
+                            change(before.latencyMs().p99(), after.latencyMs().p99()),
+                            change(before.latencyMs().p999(), after.latencyMs().p999()),
+                            100 * (after.errorRate() - before.errorRate())));
+        }
+    }
+
+    private static String change(double before, double after) {
+        return before == 0 ? "n/a" : String.format("%+.1f%%", 100 * (after - before) / before);
+    }
+
+    private static String randomSecret() {
+        byte[] key = new byte[64];
+        new SecureRandom().nextBytes(key);
+        return Base64.getEncoder().encodeToString(key);
+    }
+
+    /**
+     * Seeded accounts and products, and the requests of each scenario.
+     * A user's own products are checked out while a patch or delete is in
+     * flight, so concurrent requests never conflict on one product.
+     */
+    private static final class Workload {
+
+        static final List<String> SCENARIOS = List.of("login", "browse", "get", "create", "patch", "delete");
+
+        // Nothing to work on (no product left to patch or delete); not a request
+        static final int SKIPPED = 0;
+
+        private record Account(String id, String email, String token, ConcurrentLinkedDeque<String> products) {
+        }
+
+        private final HttpClient http;
+        private final String base;
+        private final List<Account> accounts;
+
+        private Workload(HttpClient http, String base, List<Account> accounts) {
+            this.http = http;
+            this.base = base;
+            this.accounts = accounts;
+        }
+
+        /**
+         * Stores USERS users with OWNED_PRODUCTS products each, and PRODUCTS
+         * catalog products, directly in the repositories. Passwords share one
+         * hash and tokens are issued directly, so seeding does not wait on
+         * password hashing.
+         */
+        static Workload seed(ConfigurableApplicationContext context, HttpClient http, String base) {
+            String hash = context.getBean(PasswordEncoder.class).encode(PASSWORD);
+            JwtUtils jwtUtils = context.getBean(JwtUtils.class);
+
+            List<User> users = new ArrayList<>(USERS);
+            List<Product> products = new ArrayList<>(PRODUCTS + USERS * OWNED_PRODUCTS);
+            List<Account> accounts = new ArrayList<>(USERS);
+            for (int i = 0; i < USERS; i++) {
+                String id = "load-test-user-" + i;
+                String email = "user-" + i + "@load-test.local";
+                users.add(new User(id, "Load test user " + i, email, hash, "USER"));
+                Account account = new Account(id, email, jwtUtils.generateToken(email, id, "USER", 0L),
+                        new ConcurrentLinkedDeque<>());
+                for (int j = 0; j < OWNED_PRODUCTS; j++) {
+                    Product product = product(id + "-product-" + j, id, j);
+                    products.add(product);
+                    account.products().add(product.getId());
+                }
+                accounts.add(account);
+            }
+            for (int i = 0; i < PRODUCTS; i++) {
+                products.add(product(catalogId(i), "load-test-catalog", i));
+            }
+            context.getBean(UserRepository.class).saveAll(users);
+            context.getBean(ProductRepository.class).saveAll(products);
+            return new Workload(http, base, accounts);
+        }
+
+        private static Product product(String id, String userId, int i) {
+            Product product = new Product();
+            product.setId(id);
+            product.setName("Load test product " + i);
+            product.setDescription("Seeded by LoadTestHarness");
+            product.setPrice((double) (i % 100) + 1);
+            product.setUserId(userId);
+            return product;
+        }
+
+        private static String catalogId(int i) {
+            return "load-test-product-" + i;
+        }
+
+        /**
+         * Sends one request of the scenario as a random user.
+         *
+         * @return HTTP status, or SKIPPED
+         */
+        int execute(String scenario, SplittableRandom random) throws IOException, InterruptedException {
+            Account account = accounts.get(random.nextInt(accounts.size()));
+            return switch (scenario) {
+                case "login" -> send(request("/api/auth/login", null)
+                        .POST(json("{\"email\":\"" + account.email() + "\",\"password\":\"" + PASSWORD + "\"}")));
+                case "browse" -> send(request("/api/products?size=20&page=" + random.nextInt(50), null).GET());
+                case "get" -> send(request("/api/products/" + catalogId(random.nextInt(PRODUCTS)), null).GET());
+                case "create" -> create(account, random);
+                case "patch" -> patch(account, random);
+                case "delete" -> delete(account);
+                default -> throw new IllegalArgumentException("Unknown scenario " + scenario);
+            };
+        }
+
+        private int create(Account account, SplittableRandom random) throws IOException, InterruptedException {
+            HttpResponse<String> response = http.send(request("/api/products", account)
+                    .POST(json("{\"name\":\"Created product\",\"description\":\"Created by LoadTestHarness\","
+                            + "\"price\":" + (random.nextInt(100) + 1) + "}"))
+                    .build(), HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() < 400) {
+                account.products().add(JSON.readTree(response.body()).get("id").asString());
+            }
+            return response.statusCode();
+        }
+
+        private int patch(Account account, SplittableRandom random) throws IOException, InterruptedException {
+            String id = account.products().pollFirst();
+            if (id == null) {
+                return SKIPPED;
+            }
+            int status = SKIPPED;
+            try {
+                status = send(request("/api/products/" + id, account)
+                        .method("PATCH", json("{\"price\":" + (random.nextInt(100) + 1) + "}")));
+                return status;
+            } finally {
+                if (status != 404) {
+                    account.products().addLast(id);
+                }
+            }
+        }
+
+        private int delete(Account account) throws IOException, InterruptedException {
+            String id = account.products().pollLast();
+            if (id == null) {
+                return SKIPPED;
+            }
+            int status = SKIPPED;
+            try {
+                status = send(request("/api/products/" + id, account).DELETE());
+                return status;
+            } finally {
+                if (status == SKIPPED || (status >= 400 && status != 404)) {
+                    account.products().addLast(id);
+                }
+            }
+        }
+
+        private HttpRequest.Builder request(String path, Account account) {
+            HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(base + path))
+                    .header("Content-Type", "application/json")
+                    .timeout(REQUEST_TIMEOUT);
+            if (account != null) {
+                request.header("Authorization", "Bearer " + account.token());
+            }
+            return request;
+        }
+
+        private static HttpRequest.BodyPublisher json(String body) {
+            return HttpRequest.BodyPublishers.ofString(body);
+        }
+
+        private int send(HttpRequest.Builder request) throws IOException, InterruptedException {
+            return http.send(request.build(), HttpResponse.BodyHandlers.discarding()).statusCode();
+        }
+    }
+
+    /**
+     * Outcomes of one run, per scenario.
+     */
+    private static final class Measurement {
+
+        // Fixed set of keys, only the values change during the run
+        final Map<String, Samples> samples = new LinkedHashMap<>();
+        volatile double seconds;
+
+        Measurement(Iterable<String> scenarios) {
+            scenarios.forEach(scenario -> samples.put(scenario, new Samples()));
+        }
+
+        void record(String scenario, long arrival, Workload workload, SplittableRandom random) {
+            Samples target = samples.get(scenario);
+            int status;
+            try {
+                status = workload.execute(scenario, random);
+            } catch (HttpTimeoutException e) {
+                target.add(System.nanoTime() - arrival, "timeout");
+                return;
+            } catch (IOException | RuntimeException e) {
+                target.add(System.nanoTime() - arrival, "io");
+                return;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (status == Workload.SKIPPED) {
+                target.skipped.increment();
+            } else {
+                target.add(System.nanoTime() - arrival, status >= 400 ? String.valueOf(status) : null);
+            }
+        }
+
+        Report report(String label, Instant startedAt, Config config) {
+            List<ScenarioReport> scenarios = new ArrayList<>();
+            long requests = 0;
+            long errors = 0;
+            double throughput = 0;
+            for (Map.Entry<String, Samples> entry : samples.entrySet()) {
+                ScenarioReport scenario = entry.getValue().report(entry.getKey(), seconds);
+                requests += scenario.requests();
+                errors += scenario.errors().values().stream().mapToLong(Long::longValue).sum();
+                throughput += scenario.throughput();
+                scenarios.add(scenario);
+            }
+            return new Report(label, startedAt.toString(), config,
+                    new Totals(requests, errors, requests == 0 ? 0 : Samples.round((double) errors / requests),
+                            Samples.round(throughput)),
+                    scenarios);
+        }
+    }
+
+    /**
+     * Latencies and errors of one scenario.
+     */
+    private static final class Samples {
+
+        private long[] latencies = new long[1_024];
+        private int count;
+        private final Map<String, LongAdder> errors = new ConcurrentHashMap<>();
+        final LongAdder skipped = new LongAdder();
+
+        /**
+         * @param nanos latency from the scheduled arrival
+         * @param error error kind, null for a success
+         */
+        synchronized void add(long nanos, String error) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = nanos;
+            if (error != null) {
+                error(error);
+            }
+        }
+
+        void error(String kind) {
+            errors.computeIfAbsent(kind, k -> new LongAdder()).increment();
+        }
+
+        synchronized ScenarioReport report(String name, double seconds) {
+            long[] sorted = Arrays.copyOf(latencies, count);
+            Arrays.sort(sorted);
+
+            Map<String, Long> errorCounts = new TreeMap<>();
+            errors.forEach((kind, n) -> errorCounts.put(kind, n.sum()));
+            long dropped = errorCounts.getOrDefault("dropped", 0L);
+            long requests = count + dropped;
+            long errorCount = errorCounts.values().stream().mapToLong(Long::longValue).sum();
+
+            long[] buckets = new long[BUCKETS_MS.length + 1];
+            int bucket = 0;
+            for (long nanos : sorted) {
+                while (bucket < BUCKETS_MS.length && nanos / 1e6 > BUCKETS_MS[bucket]) {
+                    bucket++;
+                }
+                buckets[bucket]++;
+            }
+            List<Bucket> histogram = new ArrayList<>(buckets.length);
+            for (int i = 0; i < buckets.length; i++) {
+                histogram.add(new Bucket(i < BUCKETS_MS.length ? String.valueOf(BUCKETS_MS[i]) : "+Inf",
+                        buckets[i]));
+            }
+
+            Latency latency = new Latency(percentile(sorted, 0.50), percentile(sorted, 0.90),
+                    percentile(sorted, 0.99), percentile(sorted, 0.999), percentile(sorted, 1.0),
+                    sorted.length == 0 ? 0 : round(Arrays.stream(sorted).average().orElse(0) / 1e6));
+            return new ScenarioReport(name, requests, skipped.sum(), errorCounts,
+                    requests == 0 ? 0 : round((double) errorCount / requests), round(count / seconds), latency,
+                    histogram);
+        }
+
+        private static double percentile(long[] sorted, double p) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(p * sorted.length) - 1;
+            return round(sorted[Math.max(index, 0)] / 1e6);
+        }
+
+        static double round(double value) {
+            return Math.round(value * 1_000) / 1_000.0;
+        }
+    }
+}
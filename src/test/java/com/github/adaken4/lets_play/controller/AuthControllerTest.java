@@ -0,0 +1,142 @@
+package com.github.adaken4.lets_play.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Optional;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.ProviderManager;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.github.adaken4.lets_play.dto.JwtResponse;
+import com.github.adaken4.lets_play.dto.LoginRequest;
+import com.github.adaken4.lets_play.exception.TooManyRequestsException;
+import com.github.adaken4.lets_play.model.User;
+import com.github.adaken4.lets_play.repository.UserRepository;
+import com.github.adaken4.lets_play.security.JwtUtils;
+import com.github.adaken4.lets_play.security.RateLimiter;
+import com.github.adaken4.lets_play.service.CustomUserDetailsService;
+
+class AuthControllerTest {
+
+    private static final String EMAIL = "jane@example.com";
+    private static final String PASSWORD = "secret123";
+    private static final String OWNER_IP = "198.51.100.7";
+    private static final String ATTACKER_IP = "203.0.113.9";
+
+    private UserRepository userRepository;
+    private AuthController authController;
+
+    @BeforeEach
+    void setUp() {
+        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(4);
+        userRepository = mock(UserRepository.class);
+        when(userRepository.findByEmail(EMAIL)).thenReturn(Optional.of(
+                new User("user-1", "Jane", EMAIL, encoder.encode(PASSWORD), "USER")));
+
+        CustomUserDetailsService userDetailsService = new CustomUserDetailsService();
+        ReflectionTestUtils.setField(userDetailsService, "userRepository", userRepository);
+        DaoAuthenticationProvider provider = new DaoAuthenticationProvider(userDetailsService);
+        provider.setPasswordEncoder(encoder);
+
+        JwtUtils jwtUtils = new JwtUtils();
+        ReflectionTestUtils.setField(jwtUtils, "jwtSecret", Base64.getEncoder().encodeToString(new byte[32]));
+        ReflectionTestUtils.setField(jwtUtils, "jwtExpirationMs", 60_000);
+        ReflectionTestUtils.setField(jwtUtils, "verifiedCacheMaxSize", 100L);
+        ReflectionTestUtils.invokeMethod(jwtUtils, "init");
+
+        authController = new AuthController();
+        ReflectionTestUtils.setField(authController, "authenticationManager", new ProviderManager(provider));
+        ReflectionTestUtils.setField(authController, "userRepository", userRepository);
+        ReflectionTestUtils.setField(authController, "encoder", encoder);
+        ReflectionTestUtils.setField(authController, "jwtUtils", jwtUtils);
+        ReflectionTestUtils.setField(authController, "rateLimiter",
+                new RateLimiter(true, 10, 1, 10, 1, 10, 1, 100, Duration.ofMinutes(1)));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void loginQueriesUserRepositoryOnce() {
+        LoginRequest request = new LoginRequest();
+        request.setEmail(EMAIL);
+        request.setPassword(PASSWORD);
+
+        ResponseEntity<?> response = authController.authenticateUser(request, from(OWNER_IP));
+
+        JwtResponse body = (JwtResponse) response.getBody();
+        assertThat(body.getId()).isEqualTo("user-1");
+        assertThat(body.getEmail()).isEqualTo(EMAIL);
+        assertThat(body.getRole()).isEqualTo("USER");
+        assertThat(body.getToken()).isNotBlank();
+
+        // Exactly one users round trip per login
+        verify(userRepository, times(1)).findByEmail(EMAIL);
+        verifyNoMoreInteractions(userRepository);
+    }
+
+    @Test
+    void successfulLoginsDoNotSpendTheAccountBudget() {
+        // Auth burst is 10; a correct password never counts against it
+        for (int i = 0; i < 20; i++) {
+            assertThat(login(EMAIL, PASSWORD, OWNER_IP).getStatusCode().is2xxSuccessful()).isTrue();
+        }
+    }
+
+    @Test
+    void failedLoginsElsewhereDoNotLockOutAKnownAddress() {
+        login(EMAIL, PASSWORD, OWNER_IP);
+        for (int i = 0; i < 10; i++) {
+            assertThatThrownBy(() -> login(EMAIL, "wrong", ATTACKER_IP)).isInstanceOf(BadCredentialsException.class);
+        }
+
+        // Shared account budget is spent, whatever the email's case
+        assertThatThrownBy(() -> login("Jane@Example.com", PASSWORD, ATTACKER_IP))
+                .isInstanceOf(TooManyRequestsException.class);
+        assertThatThrownBy(() -> login(EMAIL, PASSWORD, "192.0.2.1")).isInstanceOf(TooManyRequestsException.class);
+        // The owner's address only answers for its own failures
+        assertThat(login(EMAIL, PASSWORD, OWNER_IP).getStatusCode().is2xxSuccessful()).isTrue();
+    }
+
+    @Test
+    void failedLoginsFromAKnownAddressExhaustItsBudget() {
+        login(EMAIL, PASSWORD, OWNER_IP);
+        for (int i = 0; i < 10; i++) {
+            assertThatThrownBy(() -> login(EMAIL, "wrong", OWNER_IP)).isInstanceOf(BadCredentialsException.class);
+        }
+
+        assertThatThrownBy(() -> login(EMAIL, PASSWORD, OWNER_IP)).isInstanceOf(TooManyRequestsException.class);
+    }
+
+    private ResponseEntity<?> login(String email, String password, String ip) {
+        LoginRequest request = new LoginRequest();
+        request.setEmail(email);
+        request.setPassword(password);
+        return authController.authenticateUser(request, from(ip));
+    }
+
+    private static MockHttpServletRequest from(String ip) {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setRemoteAddr(ip);
+        return request;
+    }
+}
@@ -0,0 +1,78 @@
+package com.github.adaken4.lets_play.controller;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+
+import com.github.adaken4.lets_play.dto.PagedResponse;
+import com.github.adaken4.lets_play.dto.ProductResponse;
+
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * JSON serialization of a product listing page per page size:
+ * Page&lt;ProductResponse&gt; as returned by GET /api/products (PageImpl with
+ * its pageable/sort metadata) and the flatter PagedResponse of ?count=.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PageSerializationBenchmark {
+
+    @Param({ "1", "20", "100", "1000" })
+    private int pageSize;
+
+    private JsonMapper jsonMapper;
+    private Page<ProductResponse> page;
+    private PagedResponse<ProductResponse> pagedResponse;
+
+    @Setup
+    public void setUp() {
+        jsonMapper = JsonMapper.builder().build();
+        List<ProductResponse> content = new ArrayList<>(pageSize);
+        for (int i = 0; i < pageSize; i++) {
+            content.add(new ProductResponse("3f1c2a9e-6a3b-4c1e-9f57-" + String.format("%012d", i),
+                    "Product " + i, "Description of product " + i, 10.0 + i,
+                    "8a7b6c5d-4e3f-2a1b-0c9d-8e7f6a5b4c3d", 1L));
+        }
+        page = new PageImpl<>(content, PageRequest.of(0, pageSize), 100_000);
+        pagedResponse = new PagedResponse<>(content, 0, pageSize, true, null, false);
+    }
+
+    @Benchmark
+    public byte[] page() {
+        return jsonMapper.writeValueAsBytes(page);
+    }
+
+    @Benchmark
+    public byte[] pagedResponse() {
+        return jsonMapper.writeValueAsBytes(pagedResponse);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(PageSerializationBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,148 @@
+package com.github.adaken4.lets_play.controller;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import org.bson.Document;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import com.github.adaken4.lets_play.LetsPlayApplication;
+
+/**
+ * Thread and connection footprint of the blocking product reads
+ * (/api/products) against the reactive ones (/api/reactive/products) with
+ * 10,000 concurrent clients, on platform request threads (the default mode).
+ *
+ * For each scenario the clients send requests back to back while a sampler
+ * records the peak live platform thread count of the JVM (server plus the
+ * client's single selector thread; the clients themselves are virtual threads)
+ * and the peak MongoDB connection count reported by serverStatus.
+ *
+ * Same MongoDB and seed data as ThreadModelBenchmark. 10,000 sockets on each
+ * side need a high open-files limit (ulimit -n 65536). Run from the project root:
+ *
+ * java -cp target/classes:target/test-classes:&lt;test classpath&gt; \
+ *   -Dbench.clients=10000 -Dbench.duration=30s \
+ *   com.github.adaken4.lets_play.controller.ReactiveFootprintBenchmark
+ */
+public class ReactiveFootprintBenchmark {
+
+    private static final int CLIENTS = Integer.getInteger("bench.clients", 10_000);
+    private static final Duration WARMUP = Duration.parse("PT" + System.getProperty("bench.warmup", "10s"));
+    private static final Duration DURATION = Duration.parse("PT" + System.getProperty("bench.duration", "30s"));
+
+    public static void main(String[] args) throws Exception {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(LetsPlayApplication.class)
+                .properties(
+                        "server.port=0",
+                        "server.tomcat.max-connections=" + (CLIENTS + 1_000),
+                        "server.tomcat.accept-count=" + CLIENTS,
+                        // Streams and waits for Mongo under load can exceed the 30 s default
+                        "spring.mvc.async.request-timeout=2m",
+                        // Every simulated client shares one address
+                        "RATE_LIMIT_ENABLED=false",
+                        "PRODUCTS_AUTOCOMPLETE_ENABLED=false")
+                .run(args)) {
+            ThreadModelBenchmark.seed(context);
+            MongoTemplate mongoTemplate = context.getBean(MongoTemplate.class);
+            String base = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+
+            List<String> rows = new ArrayList<>();
+            rows.add(run(mongoTemplate, "blocking", "list", random -> get(base
+                    + "/api/products?count=none&size=20&page=" + random.nextInt(50))));
+            rows.add(run(mongoTemplate, "reactive", "list", random -> get(base
+                    + "/api/reactive/products?size=20&page=" + random.nextInt(50))));
+            rows.add(run(mongoTemplate, "blocking", "get", random -> get(base
+                    + "/api/products/" + randomProduct(random))));
+            rows.add(run(mongoTemplate, "reactive", "get", random -> get(base
+                    + "/api/reactive/products/" + randomProduct(random))));
+
+            System.out.printf("%n%d clients, %s per scenario%n", CLIENTS, DURATION);
+            System.out.printf("%-9s %-5s %10s %9s %9s %8s %8s %8s%n",
+                    "path", "test", "req/s", "p50 ms", "p99 ms", "errors", "threads", "mongo");
+            rows.forEach(System.out::println);
+        }
+    }
+
+    private static String randomProduct(SplittableRandom random) {
+        return ThreadModelBenchmark.productId(random.nextInt(ThreadModelBenchmark.PRODUCTS));
+    }
+
+    private static HttpRequest get(String url) {
+        return HttpRequest.newBuilder(URI.create(url)).build();
+    }
+
+    private static String run(MongoTemplate mongoTemplate, String path, String scenario,
+            Function<SplittableRandom, HttpRequest> requests) throws Exception {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        AtomicInteger peakThreads = new AtomicInteger();
+        AtomicInteger peakConnections = new AtomicInteger(-1);
+
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor();
+                HttpClient http = HttpClient.newBuilder()
+                        .version(HttpClient.Version.HTTP_1_1)
+                        .executor(clients)
+                        .connectTimeout(Duration.ofSeconds(30))
+                        .build()) {
+            ThreadModelBenchmark.drive(clients, http, CLIENTS, requests, WARMUP);
+
+            ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor();
+            sampler.scheduleAtFixedRate(() -> {
+                peakThreads.accumulateAndGet(threads.getThreadCount(), Math::max);
+                peakConnections.accumulateAndGet(mongoConnections(mongoTemplate), Math::max);
+            }, 0, 250, TimeUnit.MILLISECONDS);
+
+            long start = System.nanoTime();
+            List<long[]> perClient = ThreadModelBenchmark.drive(clients, http, CLIENTS, requests, DURATION);
+            double seconds = (System.nanoTime() - start) / 1e9;
+            sampler.shutdownNow();
+
+            long errors = perClient.stream().mapToLong(client -> client[0]).sum();
+            long[] latencies = perClient.stream()
+                    .flatMapToLong(client -> Arrays.stream(client, 1, client.length))
+                    .sorted()
+                    .toArray();
+            String row = String.format("%-9s %-5s %10.0f %9.2f %9.2f %8d %8d %8s",
+                    path, scenario, latencies.length / seconds, percentile(latencies, 0.50),
+                    percentile(latencies, 0.99), errors, peakThreads.get(),
+                    peakConnections.get() < 0 ? "n/a" : String.valueOf(peakConnections.get()));
+            System.out.println(row);
+            return row;
+        }
+    }
+
+    /**
+     * Current server-side connection count, -1 if serverStatus is not permitted.
+     */
+    private static int mongoConnections(MongoTemplate mongoTemplate) {
+        try {
+            Document status = mongoTemplate.executeCommand(new Document("serverStatus", 1));
+            return status.get("connections", Document.class).getInteger("current");
+        } catch (RuntimeException e) {
+            return -1;
+        }
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        return sorted[Math.max((int) Math.ceil(p * sorted.length) - 1, 0)] / 1_000_000.0;
+    }
+}
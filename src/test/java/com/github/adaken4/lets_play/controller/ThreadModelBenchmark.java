@@ -0,0 +1,216 @@
+package com.github.adaken4.lets_play.controller;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.github.adaken4.lets_play.LetsPlayApplication;
+import com.github.adaken4.lets_play.dto.UserCreationRequest;
+import com.github.adaken4.lets_play.model.Product;
+import com.github.adaken4.lets_play.repository.ProductRepository;
+import com.github.adaken4.lets_play.repository.UserRepository;
+import com.github.adaken4.lets_play.service.UserService;
+
+/**
+ * Platform threads vs virtual threads (spring.threads.virtual.enabled) under
+ * the same closed-model load: for each mode the application is started on a
+ * random port, then N concurrent clients each send requests back to back for
+ * a fixed time, one scenario at a time:
+ *
+ * list  GET /api/products?page=&lt;0..49&gt;&amp;size=20
+ * get   GET /api/products/{id} (random seeded product)
+ * login POST /api/auth/login
+ *
+ * Platform mode serves requests on Tomcat's 200 threads, so with more clients
+ * than that requests queue while threads wait on MongoDB; virtual mode does
+ * not. Login is bounded by the CPU-sized password hashing pool in both modes
+ * (expect 503s once its queue is full).
+ *
+ * Needs the MongoDB configured for the application (.env or environment).
+ * Seeds 1000 products and one user on first run and reuses them afterwards.
+ * Run from the project root:
+ *
+ * java -cp target/classes:target/test-classes:&lt;test classpath&gt; \
+ *   -Dbench.clients=1000 -Dbench.duration=30s \
+ *   com.github.adaken4.lets_play.controller.ThreadModelBenchmark
+ *
+ * Add -XX:StartFlightRecording and look for jdk.VirtualThreadPinned events to
+ * check for carrier pinning in virtual mode.
+ */
+public class ThreadModelBenchmark {
+
+    private static final String OWNER_ID = "thread-model-benchmark";
+    private static final String EMAIL = "thread-model-benchmark@lets-play.local";
+    private static final String PASSWORD = "benchmark-password";
+    static final int PRODUCTS = 1_000;
+
+    private static final int CLIENTS = Integer.getInteger("bench.clients", 500);
+    private static final Duration WARMUP = Duration.parse("PT" + System.getProperty("bench.warmup", "5s"));
+    private static final Duration DURATION = Duration.parse("PT" + System.getProperty("bench.duration", "20s"));
+
+    private record Result(String mode, String scenario, long requests, long errors, double seconds,
+            long[] latenciesNanos) {
+
+        String row() {
+            return String.format("%-9s %-6s %10.0f %9.2f %9.2f %9.2f %8d",
+                    mode, scenario, requests / seconds, percentile(0.50), percentile(0.99),
+                    percentile(1.0), errors);
+        }
+
+        private double percentile(double p) {
+            if (latenciesNanos.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(p * latenciesNanos.length) - 1;
+            return latenciesNanos[Math.max(index, 0)] / 1_000_000.0;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        List<Result> results = new ArrayList<>();
+        for (boolean virtual : new boolean[] { false, true }) {
+            String mode = virtual ? "virtual" : "platform";
+            try (ConfigurableApplicationContext context = new SpringApplicationBuilder(LetsPlayApplication.class)
+                    .properties(
+                            "server.port=0",
+                            "spring.threads.virtual.enabled=" + virtual,
+                            // Every simulated client shares one address
+                            "RATE_LIMIT_ENABLED=false",
+                            "PRODUCTS_AUTOCOMPLETE_ENABLED=false")
+                    .run(args)) {
+                seed(context);
+                String base = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+                String login = "{\"email\":\"" + EMAIL + "\",\"password\":\"" + PASSWORD + "\"}";
+
+                results.add(run(mode, "list", random -> HttpRequest
+                        .newBuilder(URI.create(base + "/api/products?size=20&page=" + random.nextInt(50)))
+                        .build()));
+                results.add(run(mode, "get", random -> HttpRequest
+                        .newBuilder(URI.create(base + "/api/products/" + productId(random.nextInt(PRODUCTS))))
+                        .build()));
+                results.add(run(mode, "login", random -> HttpRequest
+                        .newBuilder(URI.create(base + "/api/auth/login"))
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(login))
+                        .build()));
+            }
+        }
+
+        System.out.printf("%n%d clients, %s per scenario%n", CLIENTS, DURATION);
+        System.out.printf("%-9s %-6s %10s %9s %9s %9s %8s%n",
+                "mode", "test", "req/s", "p50 ms", "p99 ms", "max ms", "errors");
+        results.forEach(result -> System.out.println(result.row()));
+    }
+
+    /**
+     * Seeds the benchmark products and login user unless already present.
+     */
+    static void seed(ConfigurableApplicationContext context) {
+        ProductRepository products = context.getBean(ProductRepository.class);
+        if (products.countByUserId(OWNER_ID) != PRODUCTS) {
+            List<Product> batch = new ArrayList<>(PRODUCTS);
+            for (int i = 0; i < PRODUCTS; i++) {
+                Product product = new Product();
+                product.setId(productId(i));
+                product.setName("Benchmark product " + i);
+                product.setDescription("Seeded by ThreadModelBenchmark");
+                product.setPrice((double) (i % 100) + 1);
+                product.setUserId(OWNER_ID);
+                batch.add(product);
+            }
+            products.deleteAll(products.findAllById(batch.stream().map(Product::getId).toList()));
+            products.saveAll(batch);
+        }
+        if (!context.getBean(UserRepository.class).existsByEmail(EMAIL)) {
+            context.getBean(UserService.class)
+                    .createUser(new UserCreationRequest("Benchmark", EMAIL, PASSWORD, "USER"));
+        }
+    }
+
+    static String productId(int i) {
+        return OWNER_ID + "-" + i;
+    }
+
+    /**
+     * Warms up, then measures one scenario with CLIENTS concurrent clients.
+     */
+    private static Result run(String mode, String scenario, Function<SplittableRandom, HttpRequest> requests)
+            throws Exception {
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor();
+                HttpClient http = HttpClient.newBuilder()
+                        .version(HttpClient.Version.HTTP_1_1)
+                        .executor(clients)
+                        .connectTimeout(Duration.ofSeconds(10))
+                        .build()) {
+            drive(clients, http, CLIENTS, requests, WARMUP);
+            long start = System.nanoTime();
+            List<long[]> perClient = drive(clients, http, CLIENTS, requests, DURATION);
+            double seconds = (System.nanoTime() - start) / 1e9;
+
+            long errors = perClient.stream().mapToLong(client -> client[0]).sum();
+            long[] latencies = perClient.stream()
+                    .flatMapToLong(client -> Arrays.stream(client, 1, client.length))
+                    .sorted()
+                    .toArray();
+            Result result = new Result(mode, scenario, latencies.length, errors, seconds, latencies);
+            System.out.println(result.row());
+            return result;
+        }
+    }
+
+    /**
+     * Runs clientCount closed-loop clients for the given time.
+     *
+     * @return per client: error count, then the latency of every request in nanoseconds
+     */
+    static List<long[]> drive(ExecutorService clients, HttpClient http, int clientCount,
+            Function<SplittableRandom, HttpRequest> requests, Duration duration) throws Exception {
+        long deadline = System.nanoTime() + duration.toNanos();
+        SplittableRandom seeds = new SplittableRandom(42);
+        List<Future<long[]>> futures = new ArrayList<>(clientCount);
+        for (int i = 0; i < clientCount; i++) {
+            SplittableRandom random = seeds.split();
+            futures.add(clients.submit(() -> {
+                long[] samples = new long[1_024];
+                int count = 1;
+                while (System.nanoTime() < deadline) {
+                    long sent = System.nanoTime();
+                    boolean ok;
+                    try {
+                        ok = http.send(requests.apply(random), HttpResponse.BodyHandlers.discarding())
+                                .statusCode() < 400;
+                    } catch (IOException e) {
+                        ok = false;
+                    }
+                    if (count == samples.length) {
+                        samples = Arrays.copyOf(samples, count * 2);
+                    }
+                    samples[count++] = System.nanoTime() - sent;
+                    if (!ok) {
+                        samples[0]++;
+                    }
+                }
+                return Arrays.copyOf(samples, count);
+            }));
+        }
+        List<long[]> perClient = new ArrayList<>(clientCount);
+        for (Future<long[]> future : futures) {
+            perClient.add(future.get());
+        }
+        return perClient;
+    }
+}
@@ -0,0 +1,92 @@
+package com.github.adaken4.lets_play.exception;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springframework.validation.FieldError;
+import org.springframework.web.bind.MethodArgumentNotValidException;
+
+import com.github.adaken4.lets_play.dto.ProductCreationRequest;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Error body construction for the most frequent client errors:
+ * 404 (not found), 400 (three invalid fields) and 503 (saturated hashing pool).
+ * The exceptions are created once; only the handler's work is measured,
+ * including the app.exceptions counter.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GlobalExceptionHandlerBenchmark {
+
+    private GlobalExceptionHandler handler;
+    private ProductNotFoundException notFound;
+    private MethodArgumentNotValidException invalid;
+    private ServiceUnavailableException unavailable;
+
+    @Setup
+    public void setUp() throws NoSuchMethodException {
+        handler = new GlobalExceptionHandler();
+        ReflectionTestUtils.setField(handler, "meterRegistry", new SimpleMeterRegistry());
+        notFound = new ProductNotFoundException("3f1c2a9e-6a3b-4c1e-9f57-1d2b3c4d5e6f");
+        unavailable = new ServiceUnavailableException("Too many concurrent authentication requests", 1);
+
+        String name = "productCreationRequest";
+        BeanPropertyBindingResult errors = new BeanPropertyBindingResult(
+                new ProductCreationRequest("", "", -1.0), name);
+        errors.addError(new FieldError(name, "name", "must not be blank"));
+        errors.addError(new FieldError(name, "description", "must not be blank"));
+        errors.addError(new FieldError(name, "price", "must be greater than 0"));
+        invalid = new MethodArgumentNotValidException(new MethodParameter(
+                GlobalExceptionHandlerBenchmark.class.getDeclaredMethod("create", ProductCreationRequest.class), 0),
+                errors);
+    }
+
+    // Stand-in for the @Valid controller parameter the binding errors belong to
+    @SuppressWarnings("unused")
+    private void create(ProductCreationRequest request) {
+    }
+
+    @Benchmark
+    public ResponseEntity<Map<String, String>> notFound() {
+        return handler.handleProductNotFound(notFound);
+    }
+
+    @Benchmark
+    public ResponseEntity<Map<String, String>> validation() {
+        return handler.handleValidationExceptions(invalid);
+    }
+
+    @Benchmark
+    public ResponseEntity<Map<String, String>> serviceUnavailable() {
+        return handler.handleServiceUnavailable(unavailable);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(GlobalExceptionHandlerBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,126 @@
+package com.github.adaken4.lets_play.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.github.adaken4.lets_play.model.CascadeDeleteJob;
+import com.github.adaken4.lets_play.model.CascadeDeleteJob.Status;
+
+/**
+ * Lease and claim rules of cascade delete jobs against the real collection.
+ * Jobs are created far in the past, so they are the oldest and claimed
+ * before any other job the database may hold.
+ */
+@SpringBootTest
+class CascadeDeleteJobRepositoryTest {
+
+    private static final Instant T0 = Instant.parse("2000-01-01T00:00:00Z");
+    private static final Duration LEASE = Duration.ofMinutes(1);
+
+    @Autowired
+    private CascadeDeleteJobRepository jobRepository;
+
+    private String userId;
+
+    @BeforeEach
+    void setUp() {
+        userId = UUID.randomUUID().toString();
+        jobRepository.enqueue(userId, T0);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jobRepository.deleteById(userId);
+    }
+
+    @Test
+    void claimLeasesTheJobToOneWorker() {
+        CascadeDeleteJob claimed = jobRepository.claimNext("a", T0, LEASE).orElseThrow();
+
+        assertThat(claimed.getUserId()).isEqualTo(userId);
+        assertThat(claimed.getStatus()).isEqualTo(Status.RUNNING);
+        assertThat(claimed.getLeaseOwner()).isEqualTo("a");
+        assertThat(claimed.getLeaseUntil()).isEqualTo(T0.plus(LEASE));
+        // Still leased: another worker cannot take it
+        assertThat(jobRepository.claimNext("b", T0.plusSeconds(30), LEASE)
+                .filter(job -> job.getUserId().equals(userId))).isEmpty();
+    }
+
+    @Test
+    void progressExtendsTheLease() {
+        jobRepository.claimNext("a", T0, LEASE).orElseThrow();
+        assertThat(jobRepository.start(userId, "a", 10, T0)).isTrue();
+        assertThat(jobRepository.recordProgress(userId, "a", 4, T0.plusSeconds(50), LEASE)).isTrue();
+
+        // The original lease would have expired by now, the extended one has not
+        assertThat(jobRepository.claimNext("b", T0.plusSeconds(90), LEASE)
+                .filter(job -> job.getUserId().equals(userId))).isEmpty();
+        CascadeDeleteJob job = jobRepository.findById(userId).orElseThrow();
+        assertThat(job.getDeleted()).isEqualTo(4);
+        assertThat(job.getTotal()).isEqualTo(10);
+    }
+
+    @Test
+    void expiredLeaseIsTakenOverAndTheFormerOwnerLosesIt() {
+        jobRepository.claimNext("a", T0, LEASE).orElseThrow();
+        jobRepository.recordProgress(userId, "a", 3, T0, LEASE);
+
+        CascadeDeleteJob resumed = jobRepository.claimNext("b", T0.plus(LEASE).plusSeconds(1), LEASE).orElseThrow();
+
+        assertThat(resumed.getUserId()).isEqualTo(userId);
+        assertThat(resumed.getLeaseOwner()).isEqualTo("b");
+        // Progress is kept for the new owner, the old one can no longer write
+        assertThat(resumed.getDeleted()).isEqualTo(3);
+        assertThat(jobRepository.recordProgress(userId, "a", 1, T0.plus(LEASE), LEASE)).isFalse();
+        assertThat(jobRepository.complete(userId, "a", T0.plus(LEASE))).isFalse();
+        assertThat(jobRepository.complete(userId, "b", T0.plus(LEASE))).isTrue();
+    }
+
+    @Test
+    void completedJobIsNotClaimedAgain() {
+        jobRepository.claimNext("a", T0, LEASE).orElseThrow();
+        assertThat(jobRepository.complete(userId, "a", T0)).isTrue();
+
+        CascadeDeleteJob job = jobRepository.findById(userId).orElseThrow();
+        assertThat(job.getStatus()).isEqualTo(Status.DONE);
+        assertThat(job.getLeaseOwner()).isNull();
+        assertThat(jobRepository.claimNext("b", T0.plus(LEASE.multipliedBy(10)), LEASE)
+                .filter(claimed -> claimed.getUserId().equals(userId))).isEmpty();
+    }
+
+    @Test
+    void enqueueLeavesARunningJobAlone() {
+        jobRepository.claimNext("a", T0, LEASE).orElseThrow();
+        jobRepository.recordProgress(userId, "a", 5, T0, LEASE);
+
+        jobRepository.enqueue(userId, T0.plusSeconds(10));
+
+        CascadeDeleteJob job = jobRepository.findById(userId).orElseThrow();
+        assertThat(job.getStatus()).isEqualTo(Status.RUNNING);
+        assertThat(job.getLeaseOwner()).isEqualTo("a");
+        assertThat(job.getDeleted()).isEqualTo(5);
+    }
+
+    @Test
+    void enqueueRestartsAFinishedJob() {
+        jobRepository.claimNext("a", T0, LEASE).orElseThrow();
+        jobRepository.recordProgress(userId, "a", 5, T0, LEASE);
+        jobRepository.complete(userId, "a", T0);
+
+        jobRepository.enqueue(userId, T0.plusSeconds(10));
+
+        CascadeDeleteJob job = jobRepository.findById(userId).orElseThrow();
+        assertThat(job.getStatus()).isEqualTo(Status.PENDING);
+        assertThat(job.getDeleted()).isZero();
+        assertThat(job.getFinishedAt()).isNull();
+    }
+}
@@ -0,0 +1,82 @@
+package com.github.adaken4.lets_play.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.stream.Stream;
+
+import org.bson.Document;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.QueryMapper;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.data.mongodb.core.query.Query;
+
+import com.github.adaken4.lets_play.model.Product;
+
+/**
+ * Explains every search query shape against the real products collection
+ * (indexes created at startup) and asserts the winning plan uses an index,
+ * never a collection scan.
+ */
+@SpringBootTest
+class ProductSearchIndexTest {
+
+    private static final Sort.Direction ASC = Sort.Direction.ASC;
+    private static final Sort.Direction DESC = Sort.Direction.DESC;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    static Stream<Arguments> queryShapes() {
+        ProductFilter none = new ProductFilter(null, null, null, null);
+        ProductFilter text = new ProductFilter("wireless mouse", null, null, null);
+        ProductFilter textOwnerPrice = new ProductFilter("wireless mouse", "user-1", 10.0, 50.0);
+        ProductFilter price = new ProductFilter(null, null, 10.0, 50.0);
+        ProductFilter owner = new ProductFilter(null, "user-1", null, null);
+        ProductFilter ownerPrice = new ProductFilter(null, "user-1", 10.0, 50.0);
+
+        return Stream.of(
+                Arguments.of("text, relevance", ProductSearchQueries.byRelevance(text, 0, 21)),
+                Arguments.of("text + owner + price, relevance",
+                        ProductSearchQueries.byRelevance(textOwnerPrice, 40, 21)),
+                Arguments.of("no filter, price offset", ProductSearchQueries.byPrice(none, ASC, 40, 21)),
+                Arguments.of("price range, price offset", ProductSearchQueries.byPrice(price, DESC, 0, 21)),
+                Arguments.of("owner, price offset", ProductSearchQueries.byPrice(owner, ASC, 0, 21)),
+                Arguments.of("price range, first keyset page",
+                        ProductSearchQueries.after(price, ASC, null, null, 21)),
+                Arguments.of("price range, next keyset page",
+                        ProductSearchQueries.after(price, ASC, 20.0, "p-1", 21)),
+                Arguments.of("owner + price, next keyset page",
+                        ProductSearchQueries.after(ownerPrice, DESC, 20.0, "p-1", 21)),
+                Arguments.of("text, next keyset page", ProductSearchQueries.after(text, ASC, 20.0, "p-1", 21)));
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("queryShapes")
+    void queryShapeUsesAnIndex(String shape, Query query) {
+        String plan = explain(query).get("queryPlanner", Document.class).toJson();
+
+        assertThat(plan).as(shape).doesNotContain("COLLSCAN");
+        assertThat(plan).as(shape).containsAnyOf("IXSCAN", "TEXT");
+    }
+
+    // Maps property names the same way MongoTemplate does (id -> _id) before explaining
+    private Document explain(Query query) {
+        QueryMapper mapper = new QueryMapper(mongoTemplate.getConverter());
+        MongoPersistentEntity<?> entity = mongoTemplate.getConverter().getMappingContext()
+                .getRequiredPersistentEntity(Product.class);
+
+        return mongoTemplate.getCollection(mongoTemplate.getCollectionName(Product.class))
+                .find(mapper.getMappedObject(query.getQueryObject(), entity))
+                .projection(mapper.getMappedFields(query.getFieldsObject(), entity))
+                .sort(mapper.getMappedSort(query.getSortObject(), entity))
+                .skip((int) query.getSkip())
+                .limit(query.getLimit())
+                .explain();
+    }
+}
@@ -0,0 +1,224 @@
+package com.github.adaken4.lets_play.repository.inmemory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * Durability of the in-process storage engine: log, snapshot and recovery.
+ * A "crash" is a store abandoned without close(); the next one recovers
+ * from whatever the files hold.
+ */
+class DocumentStoreTest {
+
+    private static final String COLLECTION = "accounts";
+
+    record Account(String id, String email) {
+    }
+
+    private static final DocumentCodec<Account> CODEC = new DocumentCodec<>() {
+
+        @Override
+        public void write(Account account, DataOutput out) throws IOException {
+            DocumentCodec.writeString(out, account.id());
+            DocumentCodec.writeString(out, account.email());
+        }
+
+        @Override
+        public Account read(DataInput in) throws IOException {
+            return new Account(DocumentCodec.readString(in), DocumentCodec.readString(in));
+        }
+    };
+
+    @TempDir
+    Path directory;
+
+    private final List<DocumentStore<Account>> opened = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() throws IOException {
+        for (DocumentStore<Account> store : opened) {
+            store.close();
+        }
+    }
+
+    @Test
+    void replaysAppendedChangesAfterACrash() throws IOException {
+        DocumentStore<Account> store = recover();
+        put(store, "a", "a@example.com");
+        put(store, "b", "b@example.com");
+        put(store, "a", "a2@example.com");
+        store.apply("b", current -> null);
+
+        DocumentStore<Account> recovered = recover();
+
+        assertThat(recovered.size()).isEqualTo(1);
+        assertThat(recovered.get("a")).isEqualTo(new Account("a", "a2@example.com"));
+        assertThat(recovered.index("email").ids("a2@example.com")).containsExactly("a");
+        assertThat(recovered.index("email").ids("a@example.com")).isEmpty();
+    }
+
+    @Test
+    void truncatesATornTailAndKeepsLaterWrites() throws IOException {
+        DocumentStore<Account> store = recover();
+        put(store, "a", "a@example.com");
+        Path segment = newestSegment();
+        long intact = Files.size(segment);
+        // Half a record, as left by a crash in the middle of a write
+        ByteBuffer torn = LogRecords.encode("b", CODEC.encode(new Account("b", "b@example.com")));
+        Files.write(segment, Arrays.copyOf(torn.array(), torn.limit() / 2), StandardOpenOption.APPEND);
+
+        DocumentStore<Account> recovered = recover();
+        assertThat(Files.size(segment)).isEqualTo(intact);
+        assertThat(recovered.contains("b")).isFalse();
+
+        // Appends continue right after the last good record, so they are not lost behind the torn one
+        put(recovered, "c", "c@example.com");
+        DocumentStore<Account> again = recover();
+        assertThat(again.get("a")).isNotNull();
+        assertThat(again.get("c")).isEqualTo(new Account("c", "c@example.com"));
+    }
+
+    @Test
+    void snapshotRotatesTheLogAndDeletesCoveredSegments() throws IOException {
+        DocumentStore<Account> store = recover();
+        for (int i = 0; i < 100; i++) {
+            put(store, "id-" + i, i + "@example.com");
+        }
+        store.apply("id-0", current -> null);
+        List<Long> before = DocumentLog.segments(directory, COLLECTION);
+
+        store.snapshot();
+
+        List<Long> after = DocumentLog.segments(directory, COLLECTION);
+        assertThat(after).hasSize(1);
+        assertThat(after.getFirst()).isGreaterThan(before.getLast());
+        Path snapshot = DocumentSnapshot.file(directory, COLLECTION);
+        // Only the header and the records, not the whole mapped window
+        assertThat(Files.size(snapshot)).isLessThan(8 * 1024);
+
+        put(store, "id-100", "100@example.com");
+        DocumentStore<Account> recovered = recover();
+        assertThat(recovered.size()).isEqualTo(100);
+        assertThat(recovered.contains("id-0")).isFalse();
+        assertThat(recovered.get("id-100")).isEqualTo(new Account("id-100", "100@example.com"));
+    }
+
+    @Test
+    void unchangedStoreWritesNoNewSnapshot() throws IOException {
+        DocumentStore<Account> store = recover();
+        put(store, "a", "a@example.com");
+        store.snapshot();
+        List<Long> segments = DocumentLog.segments(directory, COLLECTION);
+
+        store.snapshot();
+
+        assertThat(DocumentLog.segments(directory, COLLECTION)).isEqualTo(segments);
+    }
+
+    @Test
+    void replaysSeveralSegmentsInOrder() throws IOException {
+        try (DocumentLog log = DocumentLog.open(directory, COLLECTION, 1)) {
+            append(log, "a", "a1@example.com");
+            append(log, "b", "b@example.com");
+            log.rotate();
+            append(log, "a", "a2@example.com");
+            log.rotate();
+            log.append("b", null);
+            append(log, "c", "c@example.com");
+        }
+        assertThat(DocumentLog.segments(directory, COLLECTION)).containsExactly(1L, 2L, 3L);
+
+        DocumentStore<Account> recovered = recover();
+
+        assertThat(recovered.size()).isEqualTo(2);
+        assertThat(recovered.get("a")).isEqualTo(new Account("a", "a2@example.com"));
+        assertThat(recovered.contains("b")).isFalse();
+        assertThat(recovered.get("c")).isNotNull();
+    }
+
+    @Test
+    void refusesToRecoverADamagedOlderSegment() throws IOException {
+        try (DocumentLog log = DocumentLog.open(directory, COLLECTION, 1)) {
+            append(log, "a", "a@example.com");
+            log.rotate();
+            append(log, "b", "b@example.com");
+        }
+        Path first = DocumentLog.segmentFile(directory, COLLECTION, 1);
+        Files.write(first, new byte[] { 0, 0, 0, 42 }, StandardOpenOption.APPEND);
+
+        DocumentStore<Account> store = new DocumentStore<>(COLLECTION, Account::id, CODEC, indexes());
+        assertThatThrownBy(() -> store.recover(directory)).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void uniqueConflictLogsNothing() throws IOException {
+        DocumentStore<Account> store = recover();
+        put(store, "a", "taken@example.com");
+        long logged = Files.size(newestSegment());
+
+        assertThatThrownBy(() -> put(store, "b", "taken@example.com"))
+                .isInstanceOf(DuplicateKeyException.class)
+                .hasMessageContaining("index: email_1");
+
+        assertThat(Files.size(newestSegment())).isEqualTo(logged);
+        assertThat(store.contains("b")).isFalse();
+        assertThat(store.index("email").ids("taken@example.com")).containsExactly("a");
+        assertThat(recover().contains("b")).isFalse();
+    }
+
+    @Test
+    void failedAppendThatCannotBeUndoneStopsTheLog() throws IOException {
+        DocumentLog log = DocumentLog.open(directory, COLLECTION, 1);
+        append(log, "a", "a@example.com");
+        // Writing and truncating both fail on a closed channel
+        ((FileChannel) ReflectionTestUtils.getField(log, "channel")).close();
+
+        assertThatThrownBy(() -> append(log, "b", "b@example.com")).isInstanceOf(IOException.class);
+        assertThatThrownBy(() -> append(log, "c", "c@example.com"))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("unusable");
+        assertThatThrownBy(log::rotate).hasMessageContaining("unusable");
+        assertThat(DocumentLog.segments(directory, COLLECTION)).containsExactly(1L);
+    }
+
+    private DocumentStore<Account> recover() throws IOException {
+        DocumentStore<Account> store = new DocumentStore<>(COLLECTION, Account::id, CODEC, indexes());
+        store.recover(directory);
+        opened.add(store);
+        return store;
+    }
+
+    private static List<SecondaryIndex<Account>> indexes() {
+        return List.of(SecondaryIndex.unique("email", Account::email));
+    }
+
+    private static void put(DocumentStore<Account> store, String id, String email) {
+        store.apply(id, current -> new Account(id, email));
+    }
+
+    private static void append(DocumentLog log, String id, String email) throws IOException {
+        log.append(id, CODEC.encode(new Account(id, email)));
+    }
+
+    private Path newestSegment() throws IOException {
+        return DocumentLog.segmentFile(directory, COLLECTION, DocumentLog.segments(directory, COLLECTION).getLast());
+    }
+}
@@ -0,0 +1,64 @@
+package com.github.adaken4.lets_play.security;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+/**
+ * Authorization header extraction, run by AuthTokenFilter on every request
+ * before any token verification.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AuthTokenFilterBenchmark {
+
+    // Realistic compact JWT length (HS512, subject + uid/role/ver claims)
+    private static final String TOKEN = "eyJhbGciOiJIUzUxMiJ9." + "x".repeat(180) + "." + "y".repeat(86);
+
+    @Param({ "bearer", "basic", "missing" })
+    private String header;
+
+    private AuthTokenFilter filter;
+    private MockHttpServletRequest request;
+
+    @Setup
+    public void setUp() {
+        filter = new AuthTokenFilter();
+        request = new MockHttpServletRequest("GET", "/api/products");
+        switch (header) {
+            case "bearer" -> request.addHeader("Authorization", "Bearer " + TOKEN);
+            case "basic" -> request.addHeader("Authorization", "Basic dXNlcjpwYXNz");
+            default -> {
+            }
+        }
+    }
+
+    @Benchmark
+    public String parseJwt() {
+        return filter.parseJwt(request);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(AuthTokenFilterBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
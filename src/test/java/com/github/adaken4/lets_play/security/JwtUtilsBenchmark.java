@@ -0,0 +1,96 @@
+package com.github.adaken4.lets_play.security;
+
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+
+/**
+ * Per-request cost of JWT verification in AuthTokenFilter.
+ *
+ * legacyValidateThenParse reproduces the previous filter path: the key is
+ * rebuilt and the token parsed twice (validateJwtToken + getUserNameFromJwtToken).
+ * singleParse is one verification with the shared key/parser, and
+ * cachedParse is the steady state for a hot client (digest + cache hit).
+ * generate is the login-time cost of signing a token with all claims, and
+ * validate the cached validateJwtToken check.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtUtilsBenchmark {
+
+    private String secret;
+    private String token;
+    private JwtUtils jwtUtils;
+
+    @Setup
+    public void setUp() {
+        byte[] keyBytes = new byte[64];
+        new SecureRandom().nextBytes(keyBytes);
+        secret = Base64.getEncoder().encodeToString(keyBytes);
+
+        jwtUtils = new JwtUtils();
+        ReflectionTestUtils.setField(jwtUtils, "jwtSecret", secret);
+        ReflectionTestUtils.setField(jwtUtils, "jwtExpirationMs", 86_400_000);
+        ReflectionTestUtils.setField(jwtUtils, "verifiedCacheMaxSize", 10_000L);
+        jwtUtils.init();
+
+        token = jwtUtils.generateTokenFromUsername("bench@example.com");
+    }
+
+    @Benchmark
+    public String generate() {
+        return jwtUtils.generateToken("bench@example.com", "user-1", "USER", 3);
+    }
+
+    @Benchmark
+    public boolean validate() {
+        return jwtUtils.validateJwtToken(token);
+    }
+
+    @Benchmark
+    public String legacyValidateThenParse() {
+        Jwts.parser().verifyWith(Keys.hmacShaKeyFor(Decoders.BASE64.decode(secret))).build()
+                .parseSignedClaims(token);
+        return Jwts.parser().verifyWith(Keys.hmacShaKeyFor(Decoders.BASE64.decode(secret))).build()
+                .parseSignedClaims(token).getPayload().getSubject();
+    }
+
+    @Benchmark
+    public String singleParse() {
+        return jwtUtils.verify(token).getSubject();
+    }
+
+    @Benchmark
+    public String cachedParse() {
+        return jwtUtils.parseClaims(token).orElseThrow().getSubject();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(JwtUtilsBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
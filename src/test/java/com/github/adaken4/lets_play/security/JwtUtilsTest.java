@@ -0,0 +1,64 @@
+package com.github.adaken4.lets_play.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Base64;
+import java.util.Date;
+
+import javax.crypto.SecretKey;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+
+class JwtUtilsTest {
+
+    private static final byte[] KEY = new byte[32];
+
+    private JwtUtils jwtUtils;
+
+    @BeforeEach
+    void setUp() {
+        jwtUtils = new JwtUtils();
+        ReflectionTestUtils.setField(jwtUtils, "jwtSecret", Base64.getEncoder().encodeToString(KEY));
+        ReflectionTestUtils.setField(jwtUtils, "jwtExpirationMs", 60_000);
+        ReflectionTestUtils.setField(jwtUtils, "verifiedCacheMaxSize", 100L);
+        jwtUtils.init();
+    }
+
+    @Test
+    void acceptsIssuedToken() {
+        String token = jwtUtils.generateToken("jane@example.com", "user-1", "USER", 0);
+
+        assertThat(jwtUtils.parseClaims(token)).hasValueSatisfying(
+                claims -> assertThat(claims.getSubject()).isEqualTo("jane@example.com"));
+        // Second check is served from the verified-token cache
+        assertThat(jwtUtils.validateJwtToken(token)).isTrue();
+    }
+
+    @Test
+    void rejectsMissingToken() {
+        assertThat(jwtUtils.validateJwtToken(null)).isFalse();
+        assertThat(jwtUtils.validateJwtToken("")).isFalse();
+    }
+
+    @Test
+    void rejectsSignedTokenWithoutExpiration() {
+        SecretKey key = Keys.hmacShaKeyFor(KEY);
+        String token = Jwts.builder().subject("jane@example.com").issuedAt(new Date()).signWith(key).compact();
+
+        assertThat(jwtUtils.parseClaims(token)).isEmpty();
+    }
+
+    @Test
+    void rejectsExpiredToken() {
+        SecretKey key = Keys.hmacShaKeyFor(KEY);
+        String token = Jwts.builder().subject("jane@example.com")
+                .expiration(new Date(System.currentTimeMillis() - 1_000)).signWith(key).compact();
+
+        assertThat(jwtUtils.parseClaims(token)).isEmpty();
+    }
+}
@@ -0,0 +1,138 @@
+package com.github.adaken4.lets_play.security;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.github.adaken4.lets_play.security.RateLimiter.Budget;
+
+/**
+ * RateLimiter under contention, 64 threads by default (-t to change).
+ *
+ * hotKeyAllowed has every thread take tokens from one bucket that never
+ * runs dry: the worst case for the compare-and-set. hotKeyRejected is one
+ * client hammering an empty bucket, which only reads. distinctKeys gives
+ * each thread its own client, and churn spreads requests over ten times
+ * more clients than the bucket maps hold, so most requests create a bucket
+ * and evict another. hotBucket is hotKeyAllowed without the map lookup,
+ * and hotKeyLocked the same with a conventional synchronized bucket, for
+ * comparison. Contention only shows with as many cores as threads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(64)
+public class RateLimiterBenchmark {
+
+    private static final int MAX_KEYS = 100_000;
+
+    private RateLimiter unlimited;
+    private RateLimiter limited;
+    private final TokenBucket bucket = new TokenBucket(System.nanoTime());
+    private final LockedBucket lockedBucket = new LockedBucket(Integer.MAX_VALUE, 1e12);
+
+    @State(Scope.Thread)
+    public static class Client {
+        private static final AtomicInteger ids = new AtomicInteger();
+
+        String ip;
+
+        @Setup
+        public void setUp() {
+            int id = ids.incrementAndGet();
+            ip = "10.0." + (id >> 8) + "." + (id & 0xff);
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        unlimited = limiter(Integer.MAX_VALUE, 1e12);
+        limited = limiter(1, 0.001);
+    }
+
+    private static RateLimiter limiter(int burst, double perSecond) {
+        return new RateLimiter(true, burst, perSecond, burst, perSecond, burst, perSecond, MAX_KEYS,
+                Duration.ofMinutes(10));
+    }
+
+    @Benchmark
+    public long hotKeyAllowed() {
+        return unlimited.tryAcquire(Budget.READ, "10.1.1.1", null);
+    }
+
+    @Benchmark
+    public long hotKeyRejected() {
+        return limited.tryAcquire(Budget.AUTH, "10.1.1.1", null);
+    }
+
+    @Benchmark
+    public long distinctKeys(Client client) {
+        return unlimited.tryAcquire(Budget.READ, client.ip, null);
+    }
+
+    @Benchmark
+    public long churn() {
+        int id = ThreadLocalRandom.current().nextInt(MAX_KEYS * 10);
+        return unlimited.tryAcquire(Budget.WRITE, "10." + (id >> 16) + "." + ((id >> 8) & 0xff) + "." + (id & 0xff),
+                null);
+    }
+
+    @Benchmark
+    public long hotBucket() {
+        return bucket.tryAcquire(System.nanoTime(), 1, Long.MAX_VALUE / 2);
+    }
+
+    @Benchmark
+    public boolean hotKeyLocked() {
+        return lockedBucket.tryAcquire(System.nanoTime());
+    }
+
+    // Token count plus refill time, updated under the bucket's monitor
+    private static final class LockedBucket {
+        private final double capacity;
+        private final double perNano;
+        private double tokens;
+        private long refilledAt = System.nanoTime();
+
+        LockedBucket(double capacity, double perSecond) {
+            this.capacity = capacity;
+            this.perNano = perSecond / TimeUnit.SECONDS.toNanos(1);
+            this.tokens = capacity;
+        }
+
+        synchronized boolean tryAcquire(long now) {
+            tokens = Math.min(capacity, tokens + (now - refilledAt) * perNano);
+            refilledAt = now;
+            if (tokens < 1) {
+                return false;
+            }
+            tokens--;
+            return true;
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(RateLimiterBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
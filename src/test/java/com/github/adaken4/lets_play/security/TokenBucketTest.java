@@ -0,0 +1,76 @@
+package com.github.adaken4.lets_play.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+class TokenBucketTest {
+
+    // 1 token per 100ns, burst of 3
+    private static final long INTERVAL = 100;
+    private static final long TOLERANCE = 2 * INTERVAL;
+    private static final long T0 = 1_000_000;
+
+    @Test
+    void startsFullAndAllowsTheBurst() {
+        TokenBucket bucket = new TokenBucket(T0);
+
+        assertThat(bucket.tryAcquire(T0, INTERVAL, TOLERANCE)).isZero();
+        assertThat(bucket.tryAcquire(T0, INTERVAL, TOLERANCE)).isZero();
+        assertThat(bucket.tryAcquire(T0, INTERVAL, TOLERANCE)).isZero();
+        // Fourth token is one interval away
+        assertThat(bucket.tryAcquire(T0, INTERVAL, TOLERANCE)).isEqualTo(INTERVAL);
+    }
+
+    @Test
+    void retryAfterCountsDownToTheNextToken() {
+        TokenBucket bucket = drained();
+
+        assertThat(bucket.tryAcquire(T0 + 30, INTERVAL, TOLERANCE)).isEqualTo(70);
+        assertThat(bucket.tryAcquire(T0 + 99, INTERVAL, TOLERANCE)).isEqualTo(1);
+        assertThat(bucket.tryAcquire(T0 + 100, INTERVAL, TOLERANCE)).isZero();
+        assertThat(bucket.tryAcquire(T0 + 100, INTERVAL, TOLERANCE)).isEqualTo(INTERVAL);
+    }
+
+    @Test
+    void rejectionsDoNotPushTheRefillBack() {
+        TokenBucket bucket = drained();
+        for (int i = 0; i < 10; i++) {
+            bucket.tryAcquire(T0 + i, INTERVAL, TOLERANCE);
+        }
+
+        assertThat(bucket.tryAcquire(T0 + INTERVAL, INTERVAL, TOLERANCE)).isZero();
+    }
+
+    @Test
+    void refillsUpToTheBurstAndNoFurther() {
+        TokenBucket bucket = drained();
+        long later = T0 + 100 * INTERVAL;
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(bucket.tryAcquire(later, INTERVAL, TOLERANCE)).isZero();
+        }
+        assertThat(bucket.tryAcquire(later, INTERVAL, TOLERANCE)).isEqualTo(INTERVAL);
+    }
+
+    @Test
+    void waitTimeMatchesTryAcquireWithoutTakingAToken() {
+        TokenBucket bucket = new TokenBucket(T0);
+        bucket.tryAcquire(T0, INTERVAL, TOLERANCE);
+        bucket.tryAcquire(T0, INTERVAL, TOLERANCE);
+
+        assertThat(bucket.waitTime(T0, TOLERANCE)).isZero();
+        assertThat(bucket.waitTime(T0, TOLERANCE)).isZero();
+        assertThat(bucket.tryAcquire(T0, INTERVAL, TOLERANCE)).isZero();
+        assertThat(bucket.waitTime(T0 + 40, TOLERANCE)).isEqualTo(60);
+        assertThat(bucket.tryAcquire(T0 + 40, INTERVAL, TOLERANCE)).isEqualTo(60);
+    }
+
+    private static TokenBucket drained() {
+        TokenBucket bucket = new TokenBucket(T0);
+        for (int i = 0; i < 3; i++) {
+            bucket.tryAcquire(T0, INTERVAL, TOLERANCE);
+        }
+        return bucket;
+    }
+}
@@ -0,0 +1,191 @@
+package com.github.adaken4.lets_play.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.github.adaken4.lets_play.dto.ProductSuggestion;
+import com.github.adaken4.lets_play.model.Product;
+import com.github.adaken4.lets_play.repository.ProductRepository;
+
+class ProductAutocompleteIndexTest {
+
+    private static final int BATCH_SIZE = 100;
+
+    private ProductRepository productRepository;
+    private ProductAutocompleteIndex index;
+
+    @BeforeEach
+    void setUp() {
+        productRepository = mock(ProductRepository.class);
+        index = new ProductAutocompleteIndex();
+        ReflectionTestUtils.setField(index, "productRepository", productRepository);
+        ReflectionTestUtils.setField(index, "enabled", true);
+        ReflectionTestUtils.setField(index, "scanLimit", 500);
+        // Merges only when a test asks for one
+        ReflectionTestUtils.setField(index, "mergeThreshold", Integer.MAX_VALUE);
+        ReflectionTestUtils.setField(index, "batchSize", BATCH_SIZE);
+    }
+
+    @Test
+    void matchesWordPrefixesRankingNamesStartingWithThemFirst() {
+        index.put("1", "Wireless Mouse");
+        index.put("2", "Mouse Pad");
+        index.put("3", "Gaming Mousepad XL");
+        index.put("4", "Keyboard");
+
+        assertThat(ids(index.suggest("mou", 10))).containsExactly("2", "1", "3");
+        assertThat(ids(index.suggest("MOUSEP", 10))).containsExactly("3");
+        assertThat(index.suggest("  ", 10)).isEmpty();
+    }
+
+    @Test
+    void requiresEveryQueryWordIgnoringCaseAndAccents() {
+        index.put("1", "Café Crème Mug");
+        index.put("2", "Café Table");
+
+        assertThat(ids(index.suggest("cafe cr", 10))).containsExactly("1");
+        assertThat(ids(index.suggest("mug CAF", 10))).containsExactly("1");
+        assertThat(ids(index.suggest("cafe", 10))).containsExactly("2", "1");
+    }
+
+    @Test
+    void returnsExactTopKWhenRanksTieOnLength() {
+        // Same position and length: alphabetical wins, whatever the id order
+        index.put("1", "mmmm phone");
+        index.put("2", "zzzz phone");
+        index.put("3", "aaaa phone");
+
+        assertThat(ids(index.suggest("phone", 1))).containsExactly("3");
+        assertThat(ids(index.suggest("phone", 2))).containsExactly("3", "1");
+    }
+
+    @Test
+    void renameReplacesOldWords() {
+        index.put("1", "Red Lamp");
+        index.put("1", "Blue Lamp");
+
+        assertThat(index.suggest("red", 10)).isEmpty();
+        assertThat(index.suggest("blu", 10)).containsExactly(new ProductSuggestion("1", "Blue Lamp"));
+        assertThat(index.stats().entries()).isEqualTo(2);
+    }
+
+    @Test
+    void deleteRemovesAllEntries() {
+        index.put("1", "Red Lamp");
+        index.put("2", "Red Chair");
+        index.remove("1");
+
+        assertThat(ids(index.suggest("red", 10))).containsExactly("2");
+        assertThat(index.suggest("lamp", 10)).isEmpty();
+        assertThat(index.stats().entries()).isEqualTo(2);
+    }
+
+    @Test
+    void removalDuringBuildIsNotResurrectedByTheScan() {
+        Product kept = product("1", "Desk Lamp");
+        Product deleted = product("2", "Desk Chair");
+        // The delete lands after the scan started but before it reaches the product
+        when(productRepository.streamFiltered(null, null, null, BATCH_SIZE))
+                .thenReturn(Stream.of(kept, deleted).peek(p -> {
+                    if (p == kept) {
+                        index.remove(deleted.getId());
+                    }
+                }));
+
+        index.build();
+
+        assertThat(ids(index.suggest("desk", 10))).containsExactly("1");
+        assertThat(index.stats().ready()).isTrue();
+    }
+
+    @Test
+    void writesDuringBuildTakePrecedenceOverTheScan() {
+        Product renamed = product("1", "Old Name");
+        when(productRepository.streamFiltered(null, null, null, BATCH_SIZE))
+                .thenReturn(Stream.of(renamed).peek(p -> index.put("1", "New Name")));
+
+        index.build();
+
+        assertThat(index.suggest("old", 10)).isEmpty();
+        assertThat(ids(index.suggest("new", 10))).containsExactly("1");
+    }
+
+    @Test
+    void mergedProductsRankAndMatchAsBefore() {
+        when(productRepository.streamFiltered(null, null, null, BATCH_SIZE))
+                .thenReturn(Stream.of(product("1", "Wireless Mouse"), product("2", "Mouse Pad")));
+        index.build();
+        index.put("3", "Gaming Mousepad XL");
+        index.put("4", "Café Crème Mug");
+
+        index.merge();
+
+        assertThat(ids(index.suggest("mou", 10))).containsExactly("2", "1", "3");
+        assertThat(ids(index.suggest("mug caf", 10))).containsExactly("4");
+        assertThat(ids(index.suggest("mou", 2))).containsExactly("2", "1");
+        assertThat(index.stats().products()).isEqualTo(4);
+        assertThat(index.stats().entries()).isEqualTo(10);
+    }
+
+    @Test
+    void writesAfterAMergeOverrideTheMergedBase() {
+        index.put("1", "Red Lamp");
+        index.put("2", "Red Chair");
+        index.put("3", "Red Desk");
+        index.merge();
+
+        index.put("1", "Blue Lamp");
+        index.remove("2");
+        index.put("4", "Red Sofa");
+
+        assertThat(ids(index.suggest("red", 10))).containsExactly("3", "4");
+        assertThat(ids(index.suggest("lamp", 10))).containsExactly("1");
+        assertThat(index.suggest("chair", 10)).isEmpty();
+        assertThat(index.stats().products()).isEqualTo(3);
+        assertThat(index.stats().entries()).isEqualTo(6);
+
+        index.merge();
+
+        assertThat(ids(index.suggest("red", 10))).containsExactly("3", "4");
+        assertThat(ids(index.suggest("blu", 10))).containsExactly("1");
+        assertThat(index.stats().products()).isEqualTo(3);
+        assertThat(index.stats().entries()).isEqualTo(6);
+    }
+
+    @Test
+    void writesPastTheThresholdMergeInTheBackground() throws InterruptedException {
+        ReflectionTestUtils.setField(index, "mergeThreshold", 2);
+        when(productRepository.streamFiltered(null, null, null, BATCH_SIZE)).thenReturn(Stream.empty());
+        index.build();
+
+        index.put("1", "Desk Lamp");
+        index.put("2", "Desk Chair");
+        index.put("3", "Desk Mat");
+
+        // Lookups see every product whether or not the merge has finished
+        for (int i = 0; i < 100; i++) {
+            assertThat(ids(index.suggest("desk", 10))).containsExactlyInAnyOrder("1", "2", "3");
+            Thread.sleep(1);
+        }
+        assertThat(index.stats().products()).isEqualTo(3);
+    }
+
+    private static List<String> ids(List<ProductSuggestion> suggestions) {
+        return suggestions.stream().map(ProductSuggestion::id).toList();
+    }
+
+    private static Product product(String id, String name) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName(name);
+        return product;
+    }
+}
@@ -0,0 +1,118 @@
+package com.github.adaken4.lets_play.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.List;
+
+import org.bson.BsonDocument;
+import org.bson.BsonInt32;
+import org.bson.BsonString;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.messaging.ChangeStreamRequest;
+import org.springframework.data.mongodb.core.messaging.Message;
+import org.springframework.data.mongodb.core.messaging.MessageListenerContainer;
+import org.springframework.data.mongodb.core.messaging.Subscription;
+
+import com.github.adaken4.lets_play.dto.ProductCacheStatsResponse.ChangeStreamState;
+import com.mongodb.MongoCommandException;
+import com.mongodb.ServerAddress;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+
+class ProductChangeSubscriptionTest {
+
+    private MessageListenerContainer container;
+    private Subscription subscription;
+    private ProductCache productCache;
+    private ProductChangeStreamListener listener;
+    private ProductChangeSubscription changeSubscription;
+
+    @BeforeEach
+    void setUp() {
+        container = mock(MessageListenerContainer.class);
+        subscription = mock(Subscription.class);
+        when(container.isRunning()).thenReturn(true);
+        when(container.register(any(), eq(Document.class), any())).thenReturn(subscription);
+        productCache = new ProductCache(100, Duration.ofMinutes(1));
+        listener = new ProductChangeStreamListener(productCache, mock(ProductAutocompleteIndex.class));
+        changeSubscription = new ProductChangeSubscription(container, listener, productCache);
+        changeSubscription.subscribe();
+    }
+
+    @Test
+    void keepsTheSubscriptionWhenOnlyTheListenerFailed() {
+        when(subscription.isActive()).thenReturn(true);
+
+        changeSubscription.handleError(new IllegalStateException("listener"));
+
+        verify(container, times(1)).register(any(), eq(Document.class), any());
+        assertThat(productCache.stats().changeStream()).isEqualTo(ChangeStreamState.ACTIVE);
+        assertThat(productCache.stats().changeStreamResubscriptions()).isZero();
+    }
+
+    @Test
+    void resubscribesAfterTheLastEventHandledWhenTheCursorFails() {
+        BsonDocument token = new BsonDocument("_data", new BsonString("8263"));
+        listener.onMessage(event(token));
+        when(subscription.isActive()).thenReturn(false);
+
+        changeSubscription.handleError(new IllegalStateException("cursor"));
+
+        verify(container).remove(subscription);
+        assertThat(resumeTokens()).containsExactly(null, token);
+        assertThat(productCache.stats().changeStream()).isEqualTo(ChangeStreamState.ACTIVE);
+        assertThat(productCache.stats().changeStreamResubscriptions()).isEqualTo(1);
+    }
+
+    @Test
+    void startsOverWhenTheResumePointLeftTheOplog() {
+        listener.onMessage(event(new BsonDocument("_data", new BsonString("8263"))));
+        when(subscription.isActive()).thenReturn(false);
+        MongoCommandException historyLost = new MongoCommandException(
+                new BsonDocument("code", new BsonInt32(286)), new ServerAddress());
+
+        changeSubscription.handleError(historyLost);
+
+        assertThat(listener.resumeToken()).isNull();
+        assertThat(resumeTokens()).containsExactly(null, null);
+    }
+
+    @Test
+    void doesNotResubscribeOnceTheContainerStopped() {
+        when(subscription.isActive()).thenReturn(false);
+        when(container.isRunning()).thenReturn(false);
+
+        changeSubscription.handleError(new IllegalStateException("shutdown"));
+
+        verify(container, times(1)).register(any(), eq(Document.class), any());
+        assertThat(productCache.stats().changeStreamResubscriptions()).isZero();
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private List<Object> resumeTokens() {
+        ArgumentCaptor<ChangeStreamRequest> requests = ArgumentCaptor.forClass(ChangeStreamRequest.class);
+        verify(container, times(2)).register(requests.capture(), eq(Document.class), any());
+        return requests.getAllValues().stream()
+                .map(request -> (Object) request.getRequestOptions().getChangeStreamOptions()
+                        .getResumeToken().orElse(null))
+                .toList();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Message<ChangeStreamDocument<Document>, Document> event(BsonDocument resumeToken) {
+        ChangeStreamDocument<Document> event = mock(ChangeStreamDocument.class);
+        when(event.getResumeToken()).thenReturn(resumeToken);
+        Message<ChangeStreamDocument<Document>, Document> message = mock(Message.class);
+        when(message.getRaw()).thenReturn(event);
+        return message;
+    }
+}
@@ -0,0 +1,75 @@
+package com.github.adaken4.lets_play.service;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.github.adaken4.lets_play.dto.ProductResponse;
+import com.github.adaken4.lets_play.dto.ProductUpdateRequest;
+import com.github.adaken4.lets_play.model.Product;
+
+/**
+ * Entity/DTO mapping done for every product returned (toResponse) and every
+ * PATCH (partialUpdate).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProductMapperBenchmark {
+
+    private Product product;
+    private ProductUpdateRequest fullUpdate;
+    private ProductUpdateRequest priceUpdate;
+
+    @Setup
+    public void setUp() {
+        product = new Product();
+        product.setId("3f1c2a9e-6a3b-4c1e-9f57-1d2b3c4d5e6f");
+        product.setName("Wireless mouse");
+        product.setDescription("Ergonomic wireless mouse with USB receiver");
+        product.setPrice(24.99);
+        product.setUserId("8a7b6c5d-4e3f-2a1b-0c9d-8e7f6a5b4c3d");
+        product.setVersion(3L);
+
+        fullUpdate = new ProductUpdateRequest("Wireless mouse", "Ergonomic wireless mouse", 19.99);
+        priceUpdate = new ProductUpdateRequest(null, null, 21.99);
+    }
+
+    @Benchmark
+    public ProductResponse toResponse() {
+        return ProductMapper.toResponse(product);
+    }
+
+    @Benchmark
+    public Product partialUpdateAllFields() {
+        ProductMapper.partialUpdate(product, fullUpdate);
+        return product;
+    }
+
+    @Benchmark
+    public Product partialUpdatePriceOnly() {
+        ProductMapper.partialUpdate(product, priceUpdate);
+        return product;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ProductMapperBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
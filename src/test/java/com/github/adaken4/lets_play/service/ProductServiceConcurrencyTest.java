@@ -0,0 +1,107 @@
+package com.github.adaken4.lets_play.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.github.adaken4.lets_play.dto.ProductCreationRequest;
+import com.github.adaken4.lets_play.dto.ProductResponse;
+import com.github.adaken4.lets_play.dto.ProductUpdateRequest;
+import com.github.adaken4.lets_play.exception.PreconditionFailedException;
+import com.github.adaken4.lets_play.model.User;
+import com.github.adaken4.lets_play.repository.ProductRepository;
+import com.github.adaken4.lets_play.repository.UserRepository;
+
+/**
+ * Stress test for optimistic concurrency on PATCH: many threads increment the
+ * same product's price with If-Match semantics, retrying on 412. The
+ * conditional update refuses a stale version with PreconditionFailedException.
+ * Without versioning some increments would be silently lost.
+ */
+@SpringBootTest
+class ProductServiceConcurrencyTest {
+
+    private static final int THREADS = 8;
+    private static final int INCREMENTS_PER_THREAD = 25;
+
+    @Autowired
+    private ProductService productService;
+    @Autowired
+    private ProductRepository productRepository;
+    @Autowired
+    private UserRepository userRepository;
+
+    private String userId;
+    private String productId;
+
+    @BeforeEach
+    void setUp() {
+        userId = UUID.randomUUID().toString();
+        userRepository.save(new User(userId, "Stress", userId + "@example.com", "{noop}unused", "USER"));
+        productId = productService.createProduct(
+                new ProductCreationRequest("Counter", "Concurrency stress test", 1.0), userId).id();
+    }
+
+    @AfterEach
+    void tearDown() {
+        productRepository.deleteById(productId);
+        userRepository.deleteById(userId);
+    }
+
+    @Test
+    void concurrentPatchesLoseNoUpdates() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger attempts = new AtomicInteger();
+        AtomicInteger conflicts = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+
+        for (int t = 0; t < THREADS; t++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < INCREMENTS_PER_THREAD; i++) {
+                    while (true) {
+                        ProductResponse current = productService.getProductById(productId).orElseThrow();
+                        attempts.incrementAndGet();
+                        try {
+                            productService.updateProduct(productId,
+                                    new ProductUpdateRequest(null, null, current.price() + 1),
+                                    userId, "[ROLE_USER]", current.version());
+                            break;
+                        } catch (PreconditionFailedException e) {
+                            // 412: re-read and retry, exactly what a client would do
+                            conflicts.incrementAndGet();
+                        }
+                    }
+                }
+                return null;
+            }));
+        }
+
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        ProductResponse result = productService.getProductById(productId).orElseThrow();
+        int expectedUpdates = THREADS * INCREMENTS_PER_THREAD;
+        assertThat(result.price()).isEqualTo(1.0 + expectedUpdates);
+        assertThat(result.version()).isEqualTo((long) expectedUpdates);
+        // Every attempt was either applied or refused as a conflict, never both or neither
+        assertThat(attempts.get() - conflicts.get()).isEqualTo(expectedUpdates);
+    }
+}